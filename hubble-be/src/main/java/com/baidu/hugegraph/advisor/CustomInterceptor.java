@@ -19,17 +19,13 @@
 
 package com.baidu.hugegraph.advisor;
 
-import java.util.regex.Pattern;
-
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
-import com.baidu.hugegraph.exception.InternalException;
 import com.baidu.hugegraph.license.LicenseVerifier;
 import com.baidu.hugegraph.service.license.LicenseService;
 
@@ -42,28 +38,42 @@ public class CustomInterceptor extends HandlerInterceptorAdapter {
     @Autowired
     private LicenseService licenseService;
 
-    private static final Pattern CHECK_API_PATTERN =
-                         Pattern.compile(".*/graph-connections/\\d+/.+");
+    private static final String CHECK_API_PREFIX = "/graph-connections/";
 
     @Override
     public boolean preHandle(HttpServletRequest request,
                              HttpServletResponse response,
                              Object handler) {
-        String url = request.getRequestURI();
-        if (!CHECK_API_PATTERN.matcher(url).matches()) {
+        // Only check the apis like ".*/graph-connections/{id}/.+"
+        int connId = parseConnId(request.getRequestURI());
+        if (connId < 0) {
             return true;
         }
-
-        String connIdValue = StringUtils.substringBetween(
-                             url, "/graph-connections/", "/");
-        if (StringUtils.isEmpty(connIdValue)) {
-            throw new InternalException("Not found conn id in url");
-        }
-
-        int connId = Integer.parseInt(connIdValue);
         // Check graph connection valid
         this.licenseService.checkGraphStatus(connId);
         LicenseVerifier.instance().verifyIfNeeded();
         return true;
     }
+
+    /**
+     * Parse the conn id from url, return -1 if it's not an api to check
+     */
+    private static int parseConnId(String url) {
+        int begin = url.indexOf(CHECK_API_PREFIX);
+        if (begin < 0) {
+            return -1;
+        }
+        begin += CHECK_API_PREFIX.length();
+        int end = url.indexOf('/', begin);
+        if (end <= begin || end == url.length() - 1) {
+            return -1;
+        }
+        for (int i = begin; i < end; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(url.substring(begin, end));
+    }
 }
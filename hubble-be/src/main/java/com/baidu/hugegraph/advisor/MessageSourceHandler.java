@@ -45,6 +45,9 @@ import lombok.extern.log4j.Log4j2;
 public class MessageSourceHandler {
 
     private static final Locale DEFAULT_LOCALE = Locale.SIMPLIFIED_CHINESE;
+    // Resolve the locale once for all messages of a request
+    private static final String LOCALE_ATTRIBUTE =
+                                MessageSourceHandler.class.getName() + ".locale";
 
     @Autowired
     private MessageSource messageSource;
@@ -70,6 +73,15 @@ public class MessageSourceHandler {
             return DEFAULT_LOCALE;
         }
 
+        Object locale = this.request.getAttribute(LOCALE_ATTRIBUTE);
+        if (locale == null) {
+            locale = this.resolveLocale();
+            this.request.setAttribute(LOCALE_ATTRIBUTE, locale);
+        }
+        return (Locale) locale;
+    }
+
+    private Locale resolveLocale() {
         UserInfo userInfo = this.getUserInfo();
         if (userInfo != null && userInfo.getLocale() != null) {
             return LocaleUtils.toLocale(userInfo.getLocale());
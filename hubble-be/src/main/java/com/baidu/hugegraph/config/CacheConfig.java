@@ -20,9 +20,12 @@
 package com.baidu.hugegraph.config;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -31,20 +34,41 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import com.baidu.hugegraph.entity.query.GremlinCacheKey;
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.SizeUtil;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Autowired
+    private HugeConfig config;
+
     private static final int DEFAULT_MAXSIZE = 1000;
     private static final int DEFAULT_TTL = 600;
 
     public enum Caches {
 
-        // No used
-        GREMLIN_QUERY;
+        // Weighed by estimated size and expired by connection, see below
+        GREMLIN_QUERY,
+
+        // Keyed by username, evicted when the user info is saved
+        USER_INFO(100, 3600),
+
+        // Keyed by the gremlin text before rewriting
+        GREMLIN_REWRITE(1000, 3600),
+
+        // Keyed by the handle id of gremlin result, weighed by size, see below
+        GREMLIN_RESULT_HANDLE,
+
+        // Keyed by the handle id of gremlin result, updated by expanding
+        GRAPH_LAYOUT(200, 600);
 
         private int maxSize = DEFAULT_MAXSIZE;
         private int ttl = DEFAULT_TTL;
@@ -73,6 +97,16 @@ public class CacheConfig {
         List<CaffeineCache> caches = new ArrayList<>();
         for (Caches c : Caches.values()) {
             Cache<Object, Object> cache;
+            if (c == Caches.GREMLIN_QUERY) {
+                cache = this.buildGremlinQueryCache();
+                caches.add(new CaffeineCache(c.name(), cache, false));
+                continue;
+            }
+            if (c == Caches.GREMLIN_RESULT_HANDLE) {
+                cache = this.buildResultHandleCache(c.ttl());
+                caches.add(new CaffeineCache(c.name(), cache, false));
+                continue;
+            }
             cache = Caffeine.newBuilder()
                             .recordStats()
                             .maximumSize(c.maxSize())
@@ -83,4 +117,82 @@ public class CacheConfig {
         cacheManager.setCaches(caches);
         return cacheManager;
     }
+
+    /**
+     * The handle is kept for every executed gremlin, so the cache must be
+     * bounded by the size of results rather than the count of them
+     */
+    private Cache<Object, Object> buildResultHandleCache(int ttl) {
+        long capacity = this.config.get(
+                        HubbleOptions.GREMLIN_RESULT_HANDLE_CAPACITY);
+        return Caffeine.newBuilder()
+                       .recordStats()
+                       .maximumWeight(capacity * 1024L * 1024L)
+                       .weigher(CacheConfig::weigh)
+                       .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                       .build();
+    }
+
+    private Cache<Object, Object> buildGremlinQueryCache() {
+        long capacity = this.config.get(
+                        HubbleOptions.GREMLIN_RESULT_CACHE_CAPACITY);
+        long defaultTtl = this.config.get(
+                          HubbleOptions.GREMLIN_RESULT_CACHE_TTL);
+        Map<Integer, Long> connTtls = new HashMap<>();
+        for (String connTtl : this.config.get(
+                              HubbleOptions.GREMLIN_RESULT_CACHE_CONN_TTL)) {
+            String[] parts = connTtl.split(":");
+            E.checkArgument(parts.length == 2,
+                            "Invalid gremlin result cache ttl '%s', " +
+                            "expect format 'conn_id:ttl'", connTtl);
+            connTtls.put(Integer.valueOf(parts[0].trim()),
+                         Long.valueOf(parts[1].trim()));
+        }
+
+        return Caffeine.newBuilder()
+                       .recordStats()
+                       .maximumWeight(capacity * 1024L * 1024L)
+                       .weigher(CacheConfig::weigh)
+                       .expireAfter(new Expiry<Object, Object>() {
+                           @Override
+                           public long expireAfterCreate(Object key,
+                                                         Object value,
+                                                         long currentTime) {
+                               long ttl = defaultTtl;
+                               if (key instanceof GremlinCacheKey) {
+                                   int connId = ((GremlinCacheKey) key)
+                                                .getConnId();
+                                   ttl = connTtls.getOrDefault(connId,
+                                                               defaultTtl);
+                               }
+                               return TimeUnit.SECONDS.toNanos(ttl);
+                           }
+
+                           @Override
+                           public long expireAfterUpdate(Object key,
+                                                         Object value,
+                                                         long currentTime,
+                                                         long currentDuration) {
+                               return this.expireAfterCreate(key, value,
+                                                             currentTime);
+                           }
+
+                           @Override
+                           public long expireAfterRead(Object key,
+                                                       Object value,
+                                                       long currentTime,
+                                                       long currentDuration) {
+                               return currentDuration;
+                           }
+                       })
+                       .build();
+    }
+
+    private static int weigh(Object key, Object value) {
+        if (!(value instanceof GremlinResultHandle)) {
+            return 1;
+        }
+        long size = SizeUtil.estimate((GremlinResultHandle) value);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
 }
@@ -27,17 +27,26 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import com.baidu.hugegraph.common.Response;
+import com.baidu.hugegraph.structure.GraphElement;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.NumberOutput;
+import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
 
 @JsonComponent
 public class JacksonConfig {
 
+    // The max length of long in decimal is 20, like Long.MIN_VALUE
+    private static final ThreadLocal<char[]> NUMBER_BUFFER =
+            ThreadLocal.withInitial(() -> new char[20]);
+
     @Bean
     public ObjectMapper jacksonObjectMapper(Jackson2ObjectMapperBuilder builder) {
         ObjectMapper mapper = builder.createXmlMapper(false).build();
@@ -67,7 +76,8 @@ public class JacksonConfig {
         }
     }
 
-    public static class VertexSerializer extends JsonSerializer<Vertex> {
+    public static class VertexSerializer
+                  extends GraphElementSerializer<Vertex> {
 
         @Override
         public void serialize(Vertex vertex, JsonGenerator generator,
@@ -75,12 +85,17 @@ public class JacksonConfig {
             generator.writeStartObject();
             writeIdField("id", vertex.id(), generator);
             generator.writeStringField("label", vertex.label());
-            writePropertiesField(vertex.properties(), generator, provider);
+            this.writePropertiesField(vertex.properties(), generator, provider);
             generator.writeEndObject();
         }
+
+        @Override
+        protected VertexSerializer newInstance() {
+            return new VertexSerializer();
+        }
     }
 
-    public static class EdgeSerializer extends JsonSerializer<Edge> {
+    public static class EdgeSerializer extends GraphElementSerializer<Edge> {
 
         @Override
         public void serialize(Edge edge, JsonGenerator generator,
@@ -92,43 +107,105 @@ public class JacksonConfig {
             generator.writeStringField("label", edge.label());
             writeIdField("source", edge.sourceId(), generator);
             writeIdField("target", edge.targetId(), generator);
-            writePropertiesField(edge.properties(), generator, provider);
+            this.writePropertiesField(edge.properties(), generator, provider);
+            generator.writeEndObject();
+        }
+
+        @Override
+        protected EdgeSerializer newInstance() {
+            return new EdgeSerializer();
+        }
+    }
+
+    /**
+     * Write the common types of id and property value directly, and cache
+     * the serializers of other property value types. The cache is held by
+     * the contextual instance, so it's not shared between object mappers.
+     */
+    public abstract static class GraphElementSerializer<T extends GraphElement>
+                           extends JsonSerializer<T>
+                           implements ContextualSerializer {
+
+        private PropertySerializerMap serializers =
+                PropertySerializerMap.emptyForProperties();
+
+        protected abstract GraphElementSerializer<T> newInstance();
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider,
+                                                  BeanProperty property) {
+            return this.newInstance();
+        }
+
+        protected void writePropertiesField(Map<String, Object> properties,
+                                            JsonGenerator generator,
+                                            SerializerProvider provider)
+                                            throws IOException {
+            // Start write properties
+            generator.writeFieldName("properties");
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                this.writeValue(entry.getValue(), generator, provider);
+            }
+            // End wirte properties
             generator.writeEndObject();
         }
+
+        private void writeValue(Object value, JsonGenerator generator,
+                                SerializerProvider provider)
+                                throws IOException {
+            if (value == null) {
+                generator.writeNull();
+                return;
+            }
+            Class<?> clazz = value.getClass();
+            if (clazz == String.class) {
+                generator.writeString((String) value);
+            } else if (clazz == Long.class) {
+                // To avoid javascript loss of long precision
+                writeLongAsString((Long) value, generator);
+            } else if (clazz == Integer.class) {
+                generator.writeNumber((Integer) value);
+            } else if (clazz == Double.class) {
+                generator.writeNumber((Double) value);
+            } else if (clazz == Float.class) {
+                generator.writeNumber((Float) value);
+            } else if (clazz == Boolean.class) {
+                generator.writeBoolean((Boolean) value);
+            } else {
+                JsonSerializer<Object> serializer;
+                serializer = this.serializers.serializerFor(clazz);
+                if (serializer == null) {
+                    PropertySerializerMap.SerializerAndMapResult result;
+                    result = this.serializers.findAndAddSecondarySerializer(
+                                              clazz, provider, null);
+                    this.serializers = result.map;
+                    serializer = result.serializer;
+                }
+                serializer.serialize(value, generator, provider);
+            }
+        }
     }
 
     private static void writeIdField(String fieldName, Object id,
                                      JsonGenerator generator)
                                      throws IOException {
         // Serialize id to string
-        generator.writeStringField(fieldName, id.toString());
+        generator.writeFieldName(fieldName);
+        if (id instanceof String) {
+            generator.writeString((String) id);
+        } else if (id instanceof Long || id instanceof Integer) {
+            writeLongAsString(((Number) id).longValue(), generator);
+        } else {
+            generator.writeString(id.toString());
+        }
     }
 
-    private static void writePropertiesField(Map<String, Object> properties,
-                                             JsonGenerator generator,
-                                             SerializerProvider provider)
-                                             throws IOException {
-        // Start write properties
-        generator.writeFieldName("properties");
-        generator.writeStartObject();
-        for (Map.Entry<String, Object> entry : properties.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            generator.writeFieldName(key);
-            if (value != null) {
-                if (value instanceof Long) {
-                    // To avoid javascript loss of long precision
-                    generator.writeString(String.valueOf(value));
-                } else {
-                    JsonSerializer<Object> serializer;
-                    serializer = provider.findValueSerializer(value.getClass());
-                    serializer.serialize(value, generator, provider);
-                }
-            } else {
-                generator.writeNull();
-            }
-        }
-        // End wirte properties
-        generator.writeEndObject();
+    private static void writeLongAsString(long value, JsonGenerator generator)
+                                          throws IOException {
+        char[] buffer = NUMBER_BUFFER.get();
+        int length = NumberOutput.outputLong(value, buffer, 0);
+        generator.writeString(buffer, 0, length);
     }
 }
@@ -21,12 +21,15 @@ package com.baidu.hugegraph.config;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.List;
 
 import org.apache.tomcat.util.http.LegacyCookieProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.options.HubbleOptions;
@@ -54,5 +57,19 @@ public class TomcatServletConfig
         factory.addContextCustomizers(context -> {
             context.setCookieProcessor(new LegacyCookieProcessor());
         });
+        factory.setCompression(this.compression());
+    }
+
+    private Compression compression() {
+        Compression compression = new Compression();
+        compression.setEnabled(this.config.get(
+                               HubbleOptions.SERVER_COMPRESSION_ENABLED));
+        int minSize = this.config.get(
+                      HubbleOptions.SERVER_COMPRESSION_MIN_SIZE);
+        compression.setMinResponseSize(DataSize.ofBytes(minSize));
+        List<String> mimeTypes = this.config.get(
+                                 HubbleOptions.SERVER_COMPRESSION_MIME_TYPES);
+        compression.setMimeTypes(mimeTypes.toArray(new String[0]));
+        return compression;
     }
 }
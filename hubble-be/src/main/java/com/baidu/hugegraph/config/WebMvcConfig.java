@@ -21,6 +21,7 @@ package com.baidu.hugegraph.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -30,6 +31,8 @@ import com.baidu.hugegraph.advisor.CustomInterceptor;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private static final long ASYNC_REQUEST_TIMEOUT = 10 * 60 * 1000L;
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/{spring:[\\w-]+}")
@@ -38,6 +41,12 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .setViewName("forward:/");
     }
 
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // The streaming gremlin query may write response for a long time
+        configurer.setDefaultTimeout(ASYNC_REQUEST_TIMEOUT);
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(this.customInterceptor())
@@ -22,6 +22,7 @@ package com.baidu.hugegraph.controller;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -37,11 +38,15 @@ import com.baidu.hugegraph.common.Constant;
 import com.baidu.hugegraph.common.Response;
 import com.baidu.hugegraph.driver.HugeClient;
 import com.baidu.hugegraph.entity.GraphConnection;
+import com.baidu.hugegraph.entity.GraphEndpoint;
 import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.exception.InternalException;
 import com.baidu.hugegraph.service.GraphConnectionService;
+import com.baidu.hugegraph.service.GraphEndpointService;
 import com.baidu.hugegraph.service.HugeClientPoolService;
 import com.baidu.hugegraph.service.license.LicenseService;
+import com.baidu.hugegraph.service.query.GremlinResultCacheService;
+import com.baidu.hugegraph.service.schema.SchemaSnapshotService;
 import com.baidu.hugegraph.util.HubbleUtil;
 import com.baidu.hugegraph.util.Ex;
 import com.baidu.hugegraph.util.HugeClientUtil;
@@ -64,7 +69,13 @@ public class GraphConnectionController extends BaseController {
     @Autowired
     private HugeClientPoolService poolService;
     @Autowired
+    private GraphEndpointService endpointService;
+    @Autowired
     private LicenseService licenseService;
+    @Autowired
+    private GremlinResultCacheService cacheService;
+    @Autowired
+    private SchemaSnapshotService snapshotService;
 
     @GetMapping
     public Response list(@RequestParam(name = "content", required = false)
@@ -106,13 +117,20 @@ public class GraphConnectionController extends BaseController {
         if (entity == null) {
             throw new ExternalException("graph-connection.not-exist.id", id);
         }
-        if (!this.poolService.containsKey(id)) {
-            HugeClient client = HugeClientUtil.tryConnect(entity);
-            this.poolService.put(entity, client);
-        }
+        // Connect if not connected yet, failure will throw an exception
+        this.poolService.getOrCreate(id);
         return entity;
     }
 
+    @GetMapping("{id}/endpoints")
+    public List<GraphEndpoint> endpoints(@PathVariable("id") int id) {
+        GraphConnection entity = this.connService.get(id);
+        if (entity == null) {
+            throw new ExternalException("graph-connection.not-exist.id", id);
+        }
+        return this.endpointService.stats(id);
+    }
+
     @PostMapping
     public GraphConnection create(@RequestBody GraphConnection newEntity) {
         // Check graph connection count, if exceed limit, throw exception
@@ -169,6 +187,9 @@ public class GraphConnectionController extends BaseController {
             throw new InternalException("entity.update.failed", entity);
         }
         this.poolService.put(entity, client);
+        this.endpointService.invalidate(id);
+        this.snapshotService.invalidate(id);
+        this.cacheService.invalidate(id);
         return entity;
     }
 
@@ -183,6 +204,9 @@ public class GraphConnectionController extends BaseController {
             throw new InternalException("entity.delete.failed", oldEntity);
         }
         this.poolService.remove(oldEntity);
+        this.endpointService.invalidate(id);
+        this.snapshotService.invalidate(id);
+        this.cacheService.invalidate(id);
         this.licenseService.updateAllGraphStatus();
         return oldEntity;
     }
@@ -213,10 +237,33 @@ public class GraphConnectionController extends BaseController {
         Ex.check(port != null, () -> 0 < port && port <= 65535,
                  "graph-connection.port.must-be-in-range", "[1, 65535]", port);
 
+        String endpoints = newEntity.getEndpoints();
+        Ex.check(endpoints != null, () -> this.isEndpointsValid(endpoints),
+                 "graph-connection.endpoints.invalid", endpoints);
+
         Ex.check(newEntity.getCreateTime() == null,
                  "common.param.must-be-null", "create_time");
     }
 
+    private boolean isEndpointsValid(String endpoints) {
+        for (String endpoint : GraphEndpointService.parseEndpoints(endpoints)) {
+            int colon = endpoint.lastIndexOf(':');
+            if (colon <= 0 || !HOST_PATTERN.matcher(endpoint.substring(
+                                                    0, colon)).matches()) {
+                return false;
+            }
+            String port = endpoint.substring(colon + 1);
+            if (!StringUtils.isNumeric(port) || port.length() > 5) {
+                return false;
+            }
+            int value = Integer.parseInt(port);
+            if (value <= 0 || value > 65535) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void checkEntityUnique(GraphConnection newEntity,
                                    boolean creating) {
         List<GraphConnection> oldEntities = this.connService.listAll();
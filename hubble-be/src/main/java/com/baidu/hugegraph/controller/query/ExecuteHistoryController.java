@@ -50,7 +50,13 @@ public class ExecuteHistoryController extends GremlinController {
                                          @RequestParam(name = "page_size",
                                                        required = false,
                                                        defaultValue = "10")
-                                         int pageSize) {
+                                         int pageSize,
+                                         @RequestParam(name = "last_id",
+                                                       required = false)
+                                         Integer lastId) {
+        if (lastId != null) {
+            return this.service.listAfter(connId, lastId, pageNo, pageSize);
+        }
         return this.service.list(connId, pageNo, pageSize);
     }
 
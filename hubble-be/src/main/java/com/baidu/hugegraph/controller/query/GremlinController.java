@@ -21,7 +21,10 @@ package com.baidu.hugegraph.controller.query;
 
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.baidu.hugegraph.controller.BaseController;
+import com.baidu.hugegraph.entity.query.GremlinQuery;
 import com.baidu.hugegraph.util.Ex;
 
 public abstract class GremlinController extends BaseController {
@@ -36,4 +39,11 @@ public abstract class GremlinController extends BaseController {
         Ex.check(content.length() <= CONTENT_LENGTH_LIMIT,
                  "gremlin.statement.exceed-limit", CONTENT_LENGTH_LIMIT);
     }
+
+    protected void checkParamsValid(GremlinQuery query) {
+        Ex.check(!StringUtils.isEmpty(query.getContent()),
+                 "common.param.cannot-be-null-or-empty",
+                 "gremlin-query.content");
+        checkContentLength(query.getContent());
+    }
 }
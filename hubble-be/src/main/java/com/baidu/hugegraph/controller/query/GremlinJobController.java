@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.controller.query;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.baidu.hugegraph.common.Constant;
+import com.baidu.hugegraph.entity.query.GremlinJob;
+import com.baidu.hugegraph.entity.query.GremlinQuery;
+import com.baidu.hugegraph.entity.query.GremlinResult;
+import com.baidu.hugegraph.service.query.GremlinJobService;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+
+@RestController
+@RequestMapping(Constant.API_VERSION + "graph-connections/{connId}/gremlin-jobs")
+public class GremlinJobController extends GremlinController {
+
+    @Autowired
+    private GremlinJobService service;
+
+    @GetMapping
+    public List<GremlinJob> list(@PathVariable("connId") int connId) {
+        return this.service.list(connId);
+    }
+
+    @GetMapping("{id}")
+    public GremlinJob get(@PathVariable("connId") int connId,
+                          @PathVariable("id") int id) {
+        return this.service.get(connId, id);
+    }
+
+    @PostMapping
+    public GremlinJob submit(@PathVariable("connId") int connId,
+                             @RequestBody GremlinQuery query) {
+        this.checkParamsValid(query);
+        return this.service.submit(connId, query);
+    }
+
+    @PutMapping("{id}/cancel")
+    public GremlinJob cancel(@PathVariable("connId") int connId,
+                             @PathVariable("id") int id) {
+        return this.service.cancel(connId, id);
+    }
+
+    @GetMapping("{id}/result")
+    public GremlinResult result(@PathVariable("connId") int connId,
+                                @PathVariable("id") int id) {
+        return this.service.result(connId, id);
+    }
+
+    @GetMapping("{id}/records")
+    public IPage<Object> records(@PathVariable("connId") int connId,
+                                 @PathVariable("id") int id,
+                                 @RequestParam(name = "page_no",
+                                               required = false,
+                                               defaultValue = "1")
+                                 int pageNo,
+                                 @RequestParam(name = "page_size",
+                                               required = false,
+                                               defaultValue = "10")
+                                 int pageSize) {
+        return this.service.records(connId, id, pageNo, pageSize);
+    }
+}
@@ -26,12 +26,17 @@ import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.baidu.hugegraph.common.Constant;
 import com.baidu.hugegraph.entity.enums.ExecuteStatus;
@@ -43,6 +48,7 @@ import com.baidu.hugegraph.entity.query.GremlinResult;
 import com.baidu.hugegraph.exception.InternalException;
 import com.baidu.hugegraph.service.query.ExecuteHistoryService;
 import com.baidu.hugegraph.service.query.GremlinQueryService;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
 import com.baidu.hugegraph.util.HubbleUtil;
 import com.baidu.hugegraph.util.Ex;
 import com.google.common.collect.ImmutableSet;
@@ -64,40 +70,81 @@ public class GremlinQueryController extends GremlinController {
     private ExecuteHistoryService historyService;
 
     @PostMapping
-    public GremlinResult execute(@PathVariable("connId") int connId,
-                                 @RequestBody GremlinQuery query) {
+    public Object execute(@PathVariable("connId") int connId,
+                          @RequestBody GremlinQuery query) {
         this.checkParamsValid(query);
 
-        Date createTime = HubbleUtil.nowDate();
-        // Insert execute history
-        ExecuteStatus status = ExecuteStatus.RUNNING;
-        ExecuteHistory history;
-        history = new ExecuteHistory(null, connId, ExecuteType.GREMLIN,
-                                     query.getContent(), status, -1L,
-                                     createTime);
-        int rows = this.historyService.save(history);
-        if (rows != 1) {
-            throw new InternalException("entity.insert.failed", history);
-        }
-
+        ExecuteHistory history = this.saveHistory(connId, query);
         StopWatch timer = StopWatch.createStarted();
+        ExecuteStatus status = ExecuteStatus.FAILED;
         try {
-            GremlinResult result = this.queryService.executeQuery(connId, query);
+            Object result;
+            if (query.isCompact()) {
+                result = this.queryService.executeCompactQuery(connId, query);
+            } else {
+                result = this.queryService.executeQuery(connId, query);
+            }
             status = ExecuteStatus.SUCCESS;
             return result;
+        } finally {
+            this.updateHistory(history, status, timer);
+        }
+    }
+
+    /**
+     * Execute gremlin and write the json view into the response piece by
+     * piece, the table view and graph view won't be built in this mode
+     */
+    @PostMapping("stream")
+    public ResponseEntity<StreamingResponseBody> executeInStream(
+                                                 @PathVariable("connId")
+                                                 int connId,
+                                                 @RequestBody
+                                                 GremlinQuery query) {
+        this.checkParamsValid(query);
+
+        ExecuteHistory history = this.saveHistory(connId, query);
+        StopWatch timer = StopWatch.createStarted();
+        ResultSet resultSet;
+        try {
+            resultSet = this.queryService.executeQueryInStream(connId, query);
         } catch (Throwable e) {
-            status = ExecuteStatus.FAILED;
+            this.updateHistory(history, ExecuteStatus.FAILED, timer);
             throw e;
-        } finally {
-            timer.stop();
-            long duration = timer.getTime(TimeUnit.MILLISECONDS);
-            history.setStatus(status);
-            history.setDuration(duration);
-            rows = this.historyService.update(history);
-            if (rows != 1) {
-                log.error("Failed to save execute history entity {}", history);
-            }
         }
+
+        StreamingResponseBody body = output -> {
+            ExecuteStatus status = ExecuteStatus.FAILED;
+            try {
+                if (this.queryService.writeResults(resultSet, output)) {
+                    status = ExecuteStatus.SUCCESS;
+                }
+            } finally {
+                this.updateHistory(history, status, timer);
+            }
+        };
+        return ResponseEntity.ok()
+                             .contentType(MediaType.APPLICATION_JSON_UTF8)
+                             .body(body);
+    }
+
+    /**
+     * Get the views of an executed result by its handle, so that the views
+     * can be built on demand rather than all in the execute response
+     */
+    @GetMapping("results/{handle}")
+    public Object result(@PathVariable("connId") int connId,
+                         @PathVariable("handle") String handle,
+                         @RequestParam(value = "views", required = false)
+                         Set<GremlinResult.View> views,
+                         @RequestParam(value = "compact", required = false,
+                                       defaultValue = "false")
+                         boolean compact,
+                         @RequestParam(value = "layout", required = false,
+                                       defaultValue = "false")
+                         boolean layout) {
+        return this.queryService.getResult(connId, handle, views, compact,
+                                           layout);
     }
 
     @PutMapping
@@ -107,11 +154,30 @@ public class GremlinQueryController extends GremlinController {
         return this.queryService.expandVertex(connId, query);
     }
 
-    private void checkParamsValid(GremlinQuery query) {
-        Ex.check(!StringUtils.isEmpty(query.getContent()),
-                 "common.param.cannot-be-null-or-empty",
-                 "gremlin-query.content");
-        checkContentLength(query.getContent());
+    private ExecuteHistory saveHistory(int connId, GremlinQuery query) {
+        Date createTime = HubbleUtil.nowDate();
+        // Insert execute history
+        ExecuteHistory history;
+        history = new ExecuteHistory(null, connId, ExecuteType.GREMLIN,
+                                     query.getContent(), ExecuteStatus.RUNNING,
+                                     -1L, createTime);
+        int rows = this.historyService.save(history);
+        if (rows != 1) {
+            throw new InternalException("entity.insert.failed", history);
+        }
+        return history;
+    }
+
+    private void updateHistory(ExecuteHistory history, ExecuteStatus status,
+                               StopWatch timer) {
+        timer.stop();
+        long duration = timer.getTime(TimeUnit.MILLISECONDS);
+        history.setStatus(status);
+        history.setDuration(duration);
+        int rows = this.historyService.update(history);
+        if (rows != 1) {
+            log.error("Failed to save execute history entity {}", history);
+        }
     }
 
     private void checkParamsValid(AdjacentQuery query) {
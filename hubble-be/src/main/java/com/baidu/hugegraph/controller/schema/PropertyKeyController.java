@@ -152,6 +152,7 @@ public class PropertyKeyController extends SchemaController {
                        @RequestParam(name = "skip_using",
                                      defaultValue = "false")
                        boolean skipUsing) {
+        this.service.refreshSnapshot(connId);
         for (String name : names) {
             this.service.checkExist(name, connId);
             if (this.service.checkUsing(name, connId)) {
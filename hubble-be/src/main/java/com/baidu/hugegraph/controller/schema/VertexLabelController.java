@@ -197,6 +197,7 @@ public class VertexLabelController extends SchemaController {
     @DeleteMapping
     public void delete(@PathVariable("connId") int connId,
                        @RequestParam("names") List<String> names) {
+        this.vlService.refreshSnapshot(connId);
         for (String name : names) {
             this.vlService.checkExist(name, connId);
             Ex.check(!this.vlService.checkUsing(name, connId),
@@ -62,6 +62,13 @@ public class GraphConnection implements Identifiable, Mergeable {
     @JsonProperty("port")
     private Integer port;
 
+    /**
+     * The other servers serving the same graph, like "host1:8080,host2:8080"
+     */
+    @MergeProperty
+    @JsonProperty("endpoints")
+    private String endpoints;
+
     @MergeProperty
     @JsonProperty("username")
     private String username;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One of the servers serving the graph of a connection and its statistics
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GraphEndpoint {
+
+    @JsonProperty("host")
+    private String host;
+
+    @JsonProperty("port")
+    private Integer port;
+
+    @JsonProperty("available")
+    private Boolean available;
+
+    @JsonProperty("requests")
+    private Long requests;
+
+    @JsonProperty("failures")
+    private Long failures;
+
+    /**
+     * The exponentially weighted moving average latency in milliseconds
+     */
+    @JsonProperty("latency")
+    private Double latency;
+
+    @Override
+    public String toString() {
+        return this.host + ":" + this.port;
+    }
+}
@@ -50,6 +50,16 @@ public class AdjacentQuery {
     @JsonProperty("conditions")
     private List<Condition> conditions;
 
+    /**
+     * The handle of result being expanded, the added vertices are laid out
+     * around the vertices of its layout if layout is true
+     */
+    @JsonProperty("handle")
+    private String handle;
+
+    @JsonProperty("layout")
+    private boolean layout;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
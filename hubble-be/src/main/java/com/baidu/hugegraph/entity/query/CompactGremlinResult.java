@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.entity.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The gremlin result in compact format, every vertex and edge is written
+ * once into the element table, and the views refer to it by the index
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompactGremlinResult {
+
+    @JsonProperty("type")
+    private GremlinResult.Type type;
+    @JsonProperty("handle")
+    private String handle;
+    @JsonProperty("elements")
+    private List<GraphElement> elements;
+    @JsonProperty("json_view")
+    private JsonView jsonView;
+    @JsonProperty("table_view")
+    private TableView tableView;
+    @JsonProperty("graph_view")
+    private GraphRefs graphView;
+
+    /**
+     * Convert the result into compact format, return null if the data
+     * isn't made up of vertices, edges or paths of them, because a number
+     * in the data can't be told from an index of element table then
+     */
+    public static CompactGremlinResult of(GremlinResult result,
+                                          List<Object> data) {
+        if (!result.getType().isGraph() || !onlyElements(data)) {
+            return null;
+        }
+
+        ElementTable table = new ElementTable();
+        CompactGremlinResult compact = new CompactGremlinResult();
+        compact.setType(result.getType());
+        compact.setHandle(result.getHandle());
+        if (result.getJsonView() != null) {
+            compact.setJsonView(new JsonView(table.refs(data)));
+        }
+        TableView tableView = result.getTableView();
+        if (tableView != null && tableView.getRows() != null) {
+            List<Object> rows;
+            if (result.getType() == GremlinResult.Type.PATH) {
+                // The path rows only have ids, refer to the elements instead
+                rows = new ArrayList<>(data.size());
+                for (Object object : data) {
+                    if (object instanceof Path) {
+                        List<Object> objects = ((Path) object).objects();
+                        rows.add(ImmutableMap.of("path",
+                                                 table.refs(objects)));
+                    }
+                }
+            } else {
+                rows = table.refs(tableView.getRows());
+            }
+            compact.setTableView(new TableView(tableView.getHeader(), rows));
+        }
+        GraphView graphView = result.getGraphView();
+        if (graphView != null) {
+            List<Object> vertices = table.refs(graphView.getVertices());
+            List<Object> edges = table.refs(graphView.getEdges());
+            compact.setGraphView(new GraphRefs(vertices, edges,
+                                               layout(graphView)));
+        }
+        compact.setElements(table.elements);
+        return compact;
+    }
+
+    /**
+     * The positions are flattened as [x0, y0, x1, y1...] in the order of
+     * the vertices of graph view
+     */
+    private static float[] layout(GraphView graphView) {
+        Map<Object, float[]> positions = graphView.getLayout();
+        if (positions == null || graphView.getVertices() == null) {
+            return null;
+        }
+        float[] layout = new float[graphView.getVertices().size() * 2];
+        int i = 0;
+        for (Vertex vertex : graphView.getVertices()) {
+            float[] position = positions.get(vertex.id());
+            if (position != null) {
+                layout[i] = position[0];
+                layout[i + 1] = position[1];
+            }
+            i += 2;
+        }
+        return layout;
+    }
+
+    private static boolean onlyElements(List<Object> data) {
+        if (data == null) {
+            return false;
+        }
+        for (Object object : data) {
+            if (object instanceof Path) {
+                for (Object element : ((Path) object).objects()) {
+                    if (!(element instanceof GraphElement)) {
+                        return false;
+                    }
+                }
+            } else if (!(object instanceof GraphElement)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GraphRefs {
+
+        @JsonProperty("vertices")
+        private List<Object> vertices;
+        @JsonProperty("edges")
+        private List<Object> edges;
+        @JsonProperty("layout")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private float[] layout;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PathRefs {
+
+        @JsonProperty("labels")
+        private List<Object> labels;
+        @JsonProperty("objects")
+        private List<Object> objects;
+    }
+
+    /**
+     * The vertex and edge may have the same id, so they are indexed apart
+     */
+    private static class ElementTable {
+
+        private final List<GraphElement> elements = new ArrayList<>();
+        private final Map<Object, Integer> vertexRefs = new HashMap<>();
+        private final Map<Object, Integer> edgeRefs = new HashMap<>();
+
+        private List<Object> refs(Collection<?> objects) {
+            if (objects == null) {
+                return null;
+            }
+            List<Object> refs = new ArrayList<>(objects.size());
+            for (Object object : objects) {
+                refs.add(this.ref(object));
+            }
+            return refs;
+        }
+
+        private Object ref(Object object) {
+            if (object instanceof Vertex) {
+                return this.ref((Vertex) object, this.vertexRefs);
+            } else if (object instanceof Edge) {
+                return this.ref((Edge) object, this.edgeRefs);
+            } else {
+                assert object instanceof Path;
+                Path path = (Path) object;
+                return new PathRefs(path.labels(), this.refs(path.objects()));
+            }
+        }
+
+        private Integer ref(GraphElement element, Map<Object, Integer> refs) {
+            Integer ref = refs.get(element.id());
+            if (ref == null) {
+                ref = this.elements.size();
+                this.elements.add(element);
+                refs.put(element.id(), ref);
+            }
+            return ref;
+        }
+    }
+}
@@ -20,9 +20,11 @@
 package com.baidu.hugegraph.entity.query;
 
 import java.util.Collection;
+import java.util.Map;
 
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Vertex;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.AllArgsConstructor;
@@ -42,4 +44,15 @@ public class GraphView {
     private Collection<Vertex> vertices;
     @JsonProperty("edges")
     private Collection<Edge> edges;
+    /**
+     * The positions of vertices keyed by id if the layout is requested,
+     * see GraphLayoutService
+     */
+    @JsonProperty("layout")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<Object, float[]> layout;
+
+    public GraphView(Collection<Vertex> vertices, Collection<Edge> edges) {
+        this(vertices, edges, null);
+    }
 }
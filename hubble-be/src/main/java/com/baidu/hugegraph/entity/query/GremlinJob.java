@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.entity.query;
+
+import java.util.Date;
+import java.util.concurrent.Future;
+
+import com.baidu.hugegraph.entity.enums.JobPhase;
+import com.baidu.hugegraph.entity.enums.JobStatus;
+import com.baidu.hugegraph.util.SerializeUtil;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The gremlin job executed in background, it only lives in memory and
+ * will be purged after finished for a while
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GremlinJob {
+
+    @JsonProperty("id")
+    private Integer id;
+
+    @JsonProperty("conn_id")
+    private Integer connId;
+
+    @JsonProperty("history_id")
+    private Integer historyId;
+
+    @JsonProperty("content")
+    private String content;
+
+    @JsonProperty("status")
+    private volatile JobStatus status;
+
+    @JsonProperty("phase")
+    private volatile JobPhase phase;
+
+    @JsonProperty("message")
+    private volatile String message;
+
+    // The count of results received from server, known before views built
+    @JsonProperty("received")
+    private volatile Integer received;
+
+    @JsonProperty("total")
+    private volatile Integer total;
+
+    @JsonProperty("create_time")
+    private Date createTime;
+
+    @JsonProperty("start_time")
+    private volatile Date startTime;
+
+    @JsonProperty("end_time")
+    private volatile Date endTime;
+
+    @JsonIgnore
+    private volatile GremlinResult result;
+
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    /**
+     * The elapsed time of running, it keeps growing until the job finished
+     */
+    @JsonProperty("duration")
+    @JsonSerialize(using = SerializeUtil.DurationSerializer.class)
+    public Long getDuration() {
+        Date start = this.startTime;
+        if (start == null) {
+            return 0L;
+        }
+        Date end = this.endTime;
+        long now = end != null ? end.getTime() : System.currentTimeMillis();
+        return now - start.getTime();
+    }
+}
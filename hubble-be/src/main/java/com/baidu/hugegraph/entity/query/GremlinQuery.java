@@ -19,6 +19,8 @@
 
 package com.baidu.hugegraph.entity.query;
 
+import java.util.Set;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.AllArgsConstructor;
@@ -34,4 +36,27 @@ public class GremlinQuery {
 
     @JsonProperty("content")
     private String content;
+
+    @JsonProperty("bypass_cache")
+    private boolean bypassCache;
+
+    /**
+     * The views to be built in response, all views if it's null or empty,
+     * the others can be fetched later by the handle of result
+     */
+    @JsonProperty("views")
+    private Set<GremlinResult.View> views;
+
+    /**
+     * Whether to write the vertices and edges once into an element table
+     * and refer to them by index in views, see CompactGremlinResult
+     */
+    @JsonProperty("compact")
+    private boolean compact;
+
+    /**
+     * Whether to compute the positions of vertices in graph view
+     */
+    @JsonProperty("layout")
+    private boolean layout;
 }
@@ -34,6 +34,8 @@ public class GremlinResult {
 
     @JsonProperty("type")
     private Type type;
+    @JsonProperty("handle")
+    private String handle;
     @JsonProperty("json_view")
     private JsonView jsonView;
     @JsonProperty("table_view")
@@ -73,4 +75,13 @@ public class GremlinResult {
             return this == VERTEX || this == EDGE || this == PATH;
         }
     }
+
+    public enum View {
+
+        JSON,
+
+        TABLE,
+
+        GRAPH
+    }
 }
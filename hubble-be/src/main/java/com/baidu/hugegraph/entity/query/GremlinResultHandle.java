@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.entity.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import com.baidu.hugegraph.exception.InternalException;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The typed result of an executed gremlin, the views are built from it on
+ * demand and kept for the later requests of the same result
+ */
+@Getter
+public class GremlinResultHandle {
+
+    private final String id;
+
+    private final int connId;
+
+    private final TypedResult typedResult;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<GremlinResult.View, FutureTask<Object>> views;
+
+    public GremlinResultHandle(String id, int connId, TypedResult typedResult) {
+        this.id = id;
+        this.connId = connId;
+        this.typedResult = typedResult;
+        this.views = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the view or build it if absent, the concurrent requests of the
+     * same view will wait for the one built by the first request, and the
+     * other views aren't blocked by it. The failed one will be built again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T view(GremlinResult.View view, Supplier<T> builder) {
+        FutureTask<Object> task = new FutureTask<>(builder::get);
+        FutureTask<Object> existed = this.views.putIfAbsent(view, task);
+        if (existed == null) {
+            existed = task;
+            task.run();
+        }
+        try {
+            return (T) existed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("gremlin.execute.failed", e,
+                                        e.getMessage());
+        } catch (ExecutionException e) {
+            this.views.remove(view, existed);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new InternalException("gremlin.execute.failed", cause,
+                                        cause.getMessage());
+        }
+    }
+}
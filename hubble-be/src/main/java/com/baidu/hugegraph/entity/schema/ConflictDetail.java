@@ -21,11 +21,16 @@ package com.baidu.hugegraph.entity.schema;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.util.CollectionUtils;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.AllArgsConstructor;
@@ -54,6 +59,13 @@ public class ConflictDetail {
     @JsonProperty("edgelabel_conflicts")
     private List<SchemaConflict<EdgeLabelEntity>> elConflicts;
 
+    /**
+     * The names of conflicted entities for each type, built lazily and
+     * must be refreshed after the status of any conflict changed
+     */
+    @JsonIgnore
+    private transient Map<SchemaType, Set<String>> conflictedNames;
+
     @JsonCreator
     public ConflictDetail(SchemaType type) {
         this.type = type;
@@ -83,44 +95,88 @@ public class ConflictDetail {
 
     public void add(PropertyKeyEntity entity, ConflictStatus status) {
         this.pkConflicts.add(new SchemaConflict<>(entity, status));
+        this.conflictAdded(SchemaType.PROPERTY_KEY, entity, status);
     }
 
     public void add(PropertyIndex entity, ConflictStatus status) {
         this.piConflicts.add(new SchemaConflict<>(entity, status));
+        this.conflictAdded(SchemaType.PROPERTY_INDEX, entity, status);
     }
 
     public void add(VertexLabelEntity entity, ConflictStatus status) {
         this.vlConflicts.add(new SchemaConflict<>(entity, status));
+        this.conflictAdded(SchemaType.VERTEX_LABEL, entity, status);
     }
 
     public void add(EdgeLabelEntity entity, ConflictStatus status) {
         this.elConflicts.add(new SchemaConflict<>(entity, status));
+        this.conflictAdded(SchemaType.EDGE_LABEL, entity, status);
     }
 
     public boolean anyPropertyKeyConflict(Collection<String> names) {
-        return this.anyConflict(this.pkConflicts, names);
+        return this.anyConflict(SchemaType.PROPERTY_KEY, names);
     }
 
     public boolean anyPropertyIndexConflict(Collection<String> names) {
-        return this.anyConflict(this.piConflicts, names);
+        return this.anyConflict(SchemaType.PROPERTY_INDEX, names);
     }
 
     public boolean anyVertexLabelConflict(Collection<String> names) {
-        return this.anyConflict(this.vlConflicts, names);
+        return this.anyConflict(SchemaType.VERTEX_LABEL, names);
     }
 
-    private <T extends SchemaEntity> boolean anyConflict(
-                                             List<SchemaConflict<T>> conflicts,
-                                             Collection<String> names) {
+    /**
+     * Drop the conflicted names of the type, should be called after the
+     * status of conflicts changed
+     */
+    public void refreshConflicts(SchemaType type) {
+        if (this.conflictedNames != null) {
+            this.conflictedNames.remove(type);
+        }
+    }
+
+    private boolean anyConflict(SchemaType type, Collection<String> names) {
         if (CollectionUtils.isEmpty(names)) {
             return false;
         }
-        return conflicts.stream().anyMatch(conflict -> {
-            String name = conflict.getEntity().getName();
-            return conflict.getStatus().isConflicted() && names.contains(name);
+        Set<String> conflicted = this.conflictedNames(type);
+        if (conflicted.isEmpty()) {
+            return false;
+        }
+        for (String name : names) {
+            if (conflicted.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> conflictedNames(SchemaType type) {
+        if (this.conflictedNames == null) {
+            this.conflictedNames = new EnumMap<>(SchemaType.class);
+        }
+        return this.conflictedNames.computeIfAbsent(type, t -> {
+            Set<String> names = new HashSet<>();
+            for (SchemaConflict<?> conflict : this.getConflicts(t)) {
+                if (conflict.getStatus().isConflicted()) {
+                    names.add(conflict.getEntity().getName());
+                }
+            }
+            return names;
         });
     }
 
+    private void conflictAdded(SchemaType type, SchemaEntity entity,
+                               ConflictStatus status) {
+        if (this.conflictedNames == null || !status.isConflicted()) {
+            return;
+        }
+        Set<String> names = this.conflictedNames.get(type);
+        if (names != null) {
+            names.add(entity.getName());
+        }
+    }
+
     public boolean hasConflict() {
         for (SchemaConflict<?> conflict : this.pkConflicts) {
             if (conflict.getStatus().isConflicted()) {
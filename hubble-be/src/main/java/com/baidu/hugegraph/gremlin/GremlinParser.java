@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import com.baidu.hugegraph.exception.IllegalGremlinException;
+import com.baidu.hugegraph.gremlin.GremlinScript.Argument;
+import com.baidu.hugegraph.gremlin.GremlinScript.Statement;
+import com.baidu.hugegraph.gremlin.GremlinScript.Step;
+import com.baidu.hugegraph.gremlin.GremlinScript.Traversal;
+
+/**
+ * Parse the tokens into statements and traversals. The statements are
+ * separated by ';' or line break, unless the line break is followed by a
+ * '.' or after a '.', ',' or an operator. The closures are not parsed.
+ */
+public final class GremlinParser {
+
+    private final List<Token> tokens;
+    // The index of matched bracket for each bracket
+    private final int[] matches;
+    private final List<Traversal> traversals;
+
+    private GremlinParser(List<Token> tokens) {
+        this.tokens = tokens;
+        this.matches = this.matchBrackets();
+        this.traversals = new ArrayList<>();
+    }
+
+    public static GremlinScript parse(String gremlin) {
+        List<Token> tokens = GremlinTokenizer.tokenize(gremlin);
+        GremlinParser parser = new GremlinParser(tokens);
+        List<Statement> statements = parser.parseStatements();
+        return new GremlinScript(tokens, statements, parser.traversals);
+    }
+
+    private int[] matchBrackets() {
+        int[] matches = new int[this.tokens.size()];
+        Arrays.fill(matches, -1);
+        Deque<Integer> opens = new ArrayDeque<>();
+        for (int i = 0; i < this.tokens.size(); i++) {
+            Token.Type type = this.tokens.get(i).type();
+            if (type.isOpen()) {
+                opens.push(i);
+            } else if (type.isClose()) {
+                if (opens.isEmpty() ||
+                    !matched(this.tokens.get(opens.peek()).type(), type)) {
+                    throw new IllegalGremlinException(
+                              "gremlin.parse.unmatched-bracket", i);
+                }
+                int open = opens.pop();
+                matches[open] = i;
+                matches[i] = open;
+            }
+        }
+        if (!opens.isEmpty()) {
+            throw new IllegalGremlinException("gremlin.parse.unclosed-bracket",
+                                              opens.peek());
+        }
+        return matches;
+    }
+
+    private List<Statement> parseStatements() {
+        List<Statement> statements = new ArrayList<>();
+        int start = -1;
+        int last = -1;
+        int i = 0;
+        while (i < this.tokens.size()) {
+            Token token = this.tokens.get(i);
+            if (token.type().isTrivial()) {
+                if (token.is(Token.Type.NEWLINE) && start >= 0 &&
+                    !this.continued(last, i)) {
+                    statements.add(this.statement(start, last));
+                    start = -1;
+                }
+                i++;
+                continue;
+            }
+            if (token.is(Token.Type.SEMICOLON)) {
+                if (start >= 0) {
+                    statements.add(this.statement(start, last));
+                    start = -1;
+                }
+                i++;
+                continue;
+            }
+            if (start < 0) {
+                start = i;
+            }
+            last = token.type().isOpen() ? this.matches[i] : i;
+            i = last + 1;
+        }
+        if (start >= 0) {
+            statements.add(this.statement(start, last));
+        }
+        return statements;
+    }
+
+    private boolean continued(int last, int newline) {
+        Token.Type type = this.tokens.get(last).type();
+        if (type == Token.Type.DOT || type == Token.Type.COMMA ||
+            type == Token.Type.OPERATOR) {
+            return true;
+        }
+        int next = this.next(newline, this.tokens.size() - 1);
+        return next >= 0 && this.tokens.get(next).is(Token.Type.DOT);
+    }
+
+    private Statement statement(int start, int end) {
+        Statement statement = new Statement(start, end);
+        statement.traversals().addAll(this.parseTraversals(start, end, null));
+        return statement;
+    }
+
+    private List<Traversal> parseTraversals(int from, int to, Step parent) {
+        List<Traversal> traversals = new ArrayList<>();
+        int i = from;
+        while (i <= to) {
+            Token token = this.tokens.get(i);
+            if (token.is(Token.Type.IDENT) && !this.afterDot(i, from)) {
+                Traversal traversal = this.parseTraversal(i, to, parent);
+                traversals.add(traversal);
+                i = traversal.end() + 1;
+            } else if (token.is(Token.Type.LBRACE)) {
+                // Skip the closure
+                i = this.matches[i] + 1;
+            } else if (token.type().isOpen()) {
+                traversals.addAll(this.parseTraversals(i + 1,
+                                                       this.matches[i] - 1,
+                                                       parent));
+                i = this.matches[i] + 1;
+            } else {
+                i++;
+            }
+        }
+        return traversals;
+    }
+
+    private Traversal parseTraversal(int start, int to, Step parent) {
+        Token head = this.tokens.get(start);
+        int next = this.next(start, to);
+        boolean headIsStep = next >= 0 &&
+                             (this.tokens.get(next).is(Token.Type.LPAREN) ||
+                              this.tokens.get(next).is(Token.Type.LBRACE));
+        Traversal traversal = new Traversal(headIsStep ? null : head.text(),
+                                            parent, start);
+        this.traversals.add(traversal);
+        traversal.end(start);
+        if (headIsStep) {
+            this.parseStep(traversal, -1, start, to);
+        }
+        while (true) {
+            int dot = this.next(traversal.end(), to);
+            if (dot < 0 || !this.tokens.get(dot).is(Token.Type.DOT)) {
+                break;
+            }
+            int name = this.next(dot, to);
+            if (name < 0 || !this.tokens.get(name).is(Token.Type.IDENT)) {
+                break;
+            }
+            this.parseStep(traversal, dot, name, to);
+        }
+        return traversal;
+    }
+
+    private void parseStep(Traversal traversal, int dot, int name, int to) {
+        Step step = new Step(this.tokens.get(name).text(), dot, name);
+        traversal.steps().add(step);
+        int next = this.next(name, to);
+        if (next >= 0 && this.tokens.get(next).is(Token.Type.LPAREN)) {
+            step.call(next, this.matches[next]);
+            this.parseArguments(step);
+        } else if (next >= 0 && this.tokens.get(next).is(Token.Type.LBRACE)) {
+            step.closure(this.matches[next]);
+        }
+        traversal.end(step.end());
+    }
+
+    private void parseArguments(Step step) {
+        int start = -1;
+        int last = -1;
+        int i = step.open() + 1;
+        while (i < step.close()) {
+            Token token = this.tokens.get(i);
+            if (token.type().isTrivial()) {
+                i++;
+                continue;
+            }
+            if (token.is(Token.Type.COMMA)) {
+                if (start >= 0) {
+                    this.addArgument(step, start, last);
+                    start = -1;
+                }
+                i++;
+                continue;
+            }
+            if (start < 0) {
+                start = i;
+            }
+            last = token.type().isOpen() ? this.matches[i] : i;
+            i = last + 1;
+        }
+        if (start >= 0) {
+            this.addArgument(step, start, last);
+        }
+    }
+
+    private void addArgument(Step step, int start, int end) {
+        Argument argument = new Argument(start, end);
+        step.arguments().add(argument);
+        argument.traversals().addAll(this.parseTraversals(start, end, step));
+    }
+
+    private boolean afterDot(int index, int from) {
+        int prev = this.prev(index, from);
+        return prev >= 0 && this.tokens.get(prev).is(Token.Type.DOT);
+    }
+
+    private int next(int index, int to) {
+        for (int i = index + 1; i <= to; i++) {
+            if (!this.tokens.get(i).type().isTrivial()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int prev(int index, int from) {
+        for (int i = index - 1; i >= from; i--) {
+            if (!this.tokens.get(i).type().isTrivial()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matched(Token.Type open, Token.Type close) {
+        return (open == Token.Type.LPAREN && close == Token.Type.RPAREN) ||
+               (open == Token.Type.LBRACKET && close == Token.Type.RBRACKET) ||
+               (open == Token.Type.LBRACE && close == Token.Type.RBRACE);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.baidu.hugegraph.util.E;
+
+/**
+ * Rewrite the gremlin script by the registered rules in order
+ */
+public final class GremlinRewriter {
+
+    private final List<RewriteRule> rules;
+
+    public GremlinRewriter() {
+        this.rules = new ArrayList<>();
+    }
+
+    public GremlinRewriter register(RewriteRule rule) {
+        for (RewriteRule existed : this.rules) {
+            E.checkArgument(!existed.name().equals(rule.name()),
+                            "The rewrite rule '%s' has been registered",
+                            rule.name());
+        }
+        this.rules.add(rule);
+        return this;
+    }
+
+    public List<RewriteRule> rules() {
+        return Collections.unmodifiableList(this.rules);
+    }
+
+    /**
+     * Rewrite the script, throw IllegalGremlinException if it can't be
+     * parsed, return the original script if nothing changed
+     */
+    public String rewrite(String gremlin) {
+        if (this.rules.isEmpty()) {
+            return gremlin;
+        }
+        GremlinScript script = GremlinParser.parse(gremlin);
+        TokenRewriter rewriter = new TokenRewriter(script.tokens());
+        for (RewriteRule rule : this.rules) {
+            rule.rewrite(script, rewriter);
+        }
+        return rewriter.changed() ? rewriter.render() : gremlin;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The lightweight syntax tree of gremlin-groovy script, only the
+ * statements and the traversals (chains of method calls) are recognized,
+ * the others are kept as tokens. All positions are the indexes of tokens.
+ */
+public final class GremlinScript {
+
+    /**
+     * The steps that can start an anonymous traversal without "__."
+     */
+    public static final Set<String> ANONYMOUS_STEPS = ImmutableSet.of(
+            "V", "E", "out", "in", "both", "outE", "inE", "bothE", "outV",
+            "inV", "bothV", "otherV", "has", "hasLabel", "hasId", "hasKey",
+            "hasValue", "hasNot", "values", "valueMap", "properties", "id",
+            "label", "key", "value", "count", "dedup", "limit", "range",
+            "tail", "skip", "where", "filter", "not", "and", "or", "is",
+            "as", "select", "order", "path", "simplePath", "cyclicPath",
+            "repeat", "until", "emit", "times", "union", "coalesce",
+            "optional", "choose", "local", "identity", "constant", "fold",
+            "unfold", "group", "groupCount", "map", "flatMap", "sideEffect",
+            "store", "aggregate", "cap", "sample", "project", "math", "sum",
+            "max", "min", "mean", "barrier", "addV", "addE", "property",
+            "drop"
+    );
+
+    /**
+     * The steps that write the graph or side effects, the traversal with
+     * any of them shouldn't be rewritten to visit less elements
+     */
+    public static final Set<String> MUTATION_STEPS = ImmutableSet.of(
+            "addV", "addE", "property", "drop", "sideEffect", "store",
+            "aggregate", "iterate"
+    );
+
+    /**
+     * The steps that only check whether the argument traversals have
+     * any result
+     */
+    public static final Set<String> FILTER_STEPS = ImmutableSet.of(
+            "where", "filter", "not", "and", "or"
+    );
+
+    private final List<Token> tokens;
+    private final List<Statement> statements;
+    private final List<Traversal> traversals;
+
+    public GremlinScript(List<Token> tokens, List<Statement> statements,
+                         List<Traversal> traversals) {
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.statements = Collections.unmodifiableList(statements);
+        this.traversals = Collections.unmodifiableList(traversals);
+    }
+
+    public List<Token> tokens() {
+        return this.tokens;
+    }
+
+    public List<Statement> statements() {
+        return this.statements;
+    }
+
+    /**
+     * All the traversals including the nested ones, the outer traversal is
+     * placed before the nested ones
+     */
+    public List<Traversal> traversals() {
+        return this.traversals;
+    }
+
+    public String text(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            sb.append(this.tokens.get(i).text());
+        }
+        return sb.toString();
+    }
+
+    public static final class Statement {
+
+        private final int start;
+        private final int end;
+        private final List<Traversal> traversals = new ArrayList<>();
+
+        public Statement(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int start() {
+            return this.start;
+        }
+
+        public int end() {
+            return this.end;
+        }
+
+        /**
+         * The traversals of statement level, not nested in any step
+         */
+        public List<Traversal> traversals() {
+            return this.traversals;
+        }
+
+        /**
+         * The traversal which ends the statement, its result is the result
+         * of statement. Return null if the statement doesn't end with one.
+         */
+        public Traversal result() {
+            for (Traversal traversal : this.traversals) {
+                if (traversal.end() == this.end) {
+                    return traversal;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final class Traversal {
+
+        // The variable or class that the traversal starts from, like g
+        private final String source;
+        private final List<Step> steps = new ArrayList<>();
+        // The step that the traversal is passed to as argument
+        private final Step parent;
+        private final int start;
+        private int end;
+
+        public Traversal(String source, Step parent, int start) {
+            this.source = source;
+            this.parent = parent;
+            this.start = start;
+        }
+
+        public String source() {
+            return this.source;
+        }
+
+        public List<Step> steps() {
+            return this.steps;
+        }
+
+        public Step step(int index) {
+            return index >= 0 && index < this.steps.size() ?
+                   this.steps.get(index) : null;
+        }
+
+        public Step lastStep() {
+            return this.step(this.steps.size() - 1);
+        }
+
+        public Step parent() {
+            return this.parent;
+        }
+
+        public int start() {
+            return this.start;
+        }
+
+        public int end() {
+            return this.end;
+        }
+
+        void end(int end) {
+            this.end = end;
+        }
+
+        /**
+         * Whether it's an anonymous traversal like __.out() or out()
+         */
+        public boolean anonymous() {
+            if ("__".equals(this.source)) {
+                return true;
+            }
+            return this.source == null && !this.steps.isEmpty() &&
+                   ANONYMOUS_STEPS.contains(this.steps.get(0).name());
+        }
+
+        /**
+         * Whether it's a traversal on graph like g.V() or g.E()
+         */
+        public boolean onGraph() {
+            return this.source != null && !this.steps.isEmpty() &&
+                   this.steps.get(0).isCall() &&
+                   ("V".equals(this.steps.get(0).name()) ||
+                    "E".equals(this.steps.get(0).name()));
+        }
+
+        public boolean contains(Set<String> stepNames) {
+            for (Step step : this.steps) {
+                if (stepNames.contains(step.name())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Like contains() but also looks into the traversals nested in the
+         * arguments of steps, like coalesce(has('x'), property('x', 1))
+         */
+        public boolean containsDeeply(Set<String> stepNames) {
+            for (Step step : this.steps) {
+                if (stepNames.contains(step.name())) {
+                    return true;
+                }
+                for (Argument argument : step.arguments()) {
+                    for (Traversal nested : argument.traversals()) {
+                        if (nested.containsDeeply(stepNames)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Whether it's an anonymous traversal passed as a whole argument of
+         * filter step like where(out('knows')), only the existence of its
+         * result matters
+         */
+        public boolean checkedForExistence() {
+            Step parent = this.parent;
+            if (parent == null || !parent.isCall() || !this.anonymous() ||
+                !FILTER_STEPS.contains(parent.name())) {
+                return false;
+            }
+            for (Argument argument : parent.arguments()) {
+                if (argument.asTraversal() == this) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static final class Step {
+
+        private final String name;
+        // The dot before name, or -1 if it starts a traversal
+        private final int dot;
+        private final int nameIndex;
+        // The parentheses of call, or -1 if it's not a call
+        private int open = -1;
+        private int close = -1;
+        // The closure like map{...}
+        private int closureEnd = -1;
+        private final List<Argument> arguments = new ArrayList<>();
+
+        public Step(String name, int dot, int nameIndex) {
+            this.name = name;
+            this.dot = dot;
+            this.nameIndex = nameIndex;
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public int start() {
+            return this.dot >= 0 ? this.dot : this.nameIndex;
+        }
+
+        /**
+         * Whether it's after a dot rather than starting the traversal
+         */
+        public boolean chained() {
+            return this.dot >= 0;
+        }
+
+        public int end() {
+            if (this.closureEnd >= 0) {
+                return this.closureEnd;
+            }
+            return this.close >= 0 ? this.close : this.nameIndex;
+        }
+
+        public int open() {
+            return this.open;
+        }
+
+        public int close() {
+            return this.close;
+        }
+
+        void call(int open, int close) {
+            this.open = open;
+            this.close = close;
+        }
+
+        void closure(int end) {
+            this.closureEnd = end;
+        }
+
+        public boolean isCall() {
+            return this.open >= 0 && this.closureEnd < 0;
+        }
+
+        public boolean is(String name, int argumentCount) {
+            return this.isCall() && this.name.equals(name) &&
+                   this.arguments.size() == argumentCount;
+        }
+
+        public List<Argument> arguments() {
+            return this.arguments;
+        }
+
+        public Argument argument(int index) {
+            return index < this.arguments.size() ?
+                   this.arguments.get(index) : null;
+        }
+    }
+
+    public static final class Argument {
+
+        // The first and last non-trivial tokens
+        private final int start;
+        private final int end;
+        private final List<Traversal> traversals = new ArrayList<>();
+
+        public Argument(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int start() {
+            return this.start;
+        }
+
+        public int end() {
+            return this.end;
+        }
+
+        public List<Traversal> traversals() {
+            return this.traversals;
+        }
+
+        /**
+         * Return the traversal if the whole argument is a traversal
+         */
+        public Traversal asTraversal() {
+            if (this.traversals.size() != 1) {
+                return null;
+            }
+            Traversal traversal = this.traversals.get(0);
+            if (traversal.start() != this.start ||
+                traversal.end() != this.end) {
+                return null;
+            }
+            return traversal;
+        }
+
+        /**
+         * Whether the argument is a single token of the type
+         */
+        public boolean isSingle(Token.Type type, List<Token> tokens) {
+            return this.start == this.end && tokens.get(this.start).is(type);
+        }
+    }
+}
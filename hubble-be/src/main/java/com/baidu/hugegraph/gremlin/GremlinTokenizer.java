@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.baidu.hugegraph.exception.IllegalGremlinException;
+
+/**
+ * Split the gremlin-groovy script into tokens in one pass, the strings
+ * (including triple quoted ones) and comments are recognized so that the
+ * punctuations inside them won't be taken as the structure of script.
+ * The slashy strings are not supported since they can't be distinguished
+ * from division without parsing.
+ */
+public final class GremlinTokenizer {
+
+    private final String script;
+    private final List<Token> tokens;
+    private int pos;
+
+    private GremlinTokenizer(String script) {
+        this.script = script;
+        this.tokens = new ArrayList<>();
+        this.pos = 0;
+    }
+
+    public static List<Token> tokenize(String script) {
+        GremlinTokenizer tokenizer = new GremlinTokenizer(script);
+        tokenizer.run();
+        return tokenizer.tokens;
+    }
+
+    private void run() {
+        int length = this.script.length();
+        while (this.pos < length) {
+            int start = this.pos;
+            char c = this.script.charAt(start);
+            Token.Type type;
+            if (c == '\n') {
+                this.pos++;
+                type = Token.Type.NEWLINE;
+            } else if (c == '\r' && this.peek(1) == '\n') {
+                this.pos += 2;
+                type = Token.Type.NEWLINE;
+            } else if (Character.isWhitespace(c)) {
+                while (this.pos < length && this.peek(0) != '\n' &&
+                       Character.isWhitespace(this.peek(0)) &&
+                       !(this.peek(0) == '\r' && this.peek(1) == '\n')) {
+                    this.pos++;
+                }
+                type = Token.Type.WHITESPACE;
+            } else if (c == '/' && this.peek(1) == '/') {
+                while (this.pos < length && this.peek(0) != '\n' &&
+                       !(this.peek(0) == '\r' && this.peek(1) == '\n')) {
+                    this.pos++;
+                }
+                type = Token.Type.COMMENT;
+            } else if (c == '/' && this.peek(1) == '*') {
+                int end = this.script.indexOf("*/", start + 2);
+                if (end < 0) {
+                    throw new IllegalGremlinException(
+                              "gremlin.parse.unclosed-comment", start);
+                }
+                this.pos = end + 2;
+                type = Token.Type.COMMENT;
+            } else if (c == '\'' || c == '"') {
+                this.readString(c);
+                type = Token.Type.STRING;
+            } else if (isDigit(c)) {
+                this.readNumber();
+                type = Token.Type.NUMBER;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                while (this.pos < length &&
+                       Character.isJavaIdentifierPart(this.peek(0))) {
+                    this.pos++;
+                }
+                type = Token.Type.IDENT;
+            } else {
+                this.pos++;
+                type = punctuation(c);
+            }
+            this.tokens.add(new Token(type, this.script.substring(start,
+                                                                  this.pos)));
+        }
+    }
+
+    private void readString(char quote) {
+        int start = this.pos;
+        boolean triple = this.peek(1) == quote && this.peek(2) == quote;
+        this.pos += triple ? 3 : 1;
+        int length = this.script.length();
+        while (this.pos < length) {
+            char c = this.script.charAt(this.pos);
+            if (c == '\\') {
+                this.pos += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (!triple) {
+                    this.pos++;
+                    return;
+                }
+                if (this.peek(1) == quote && this.peek(2) == quote) {
+                    this.pos += 3;
+                    return;
+                }
+            } else if (c == '\n' && !triple) {
+                break;
+            }
+            this.pos++;
+        }
+        throw new IllegalGremlinException("gremlin.parse.unclosed-string",
+                                          start);
+    }
+
+    private void readNumber() {
+        int length = this.script.length();
+        if (this.peek(0) == '0' && (this.peek(1) == 'x' ||
+                                    this.peek(1) == 'X')) {
+            this.pos += 2;
+            while (this.pos < length && (isHexDigit(this.peek(0)) ||
+                                         this.peek(0) == '_')) {
+                this.pos++;
+            }
+        } else {
+            this.skipDigits();
+            // The dot of range like 1..3 is not the decimal point
+            if (this.peek(0) == '.' && isDigit(this.peek(1))) {
+                this.pos++;
+                this.skipDigits();
+            }
+            if ((this.peek(0) == 'e' || this.peek(0) == 'E') &&
+                (isDigit(this.peek(1)) ||
+                 ((this.peek(1) == '+' || this.peek(1) == '-') &&
+                  isDigit(this.peek(2))))) {
+                this.pos += 2;
+                this.skipDigits();
+            }
+        }
+        // The type suffix like 1L, 1.0d and 1G
+        if ("lLiIfFdDgG".indexOf(this.peek(0)) >= 0) {
+            this.pos++;
+        }
+    }
+
+    private void skipDigits() {
+        int length = this.script.length();
+        while (this.pos < length && (isDigit(this.peek(0)) ||
+                                     this.peek(0) == '_')) {
+            this.pos++;
+        }
+    }
+
+    private char peek(int offset) {
+        int index = this.pos + offset;
+        return index < this.script.length() ? this.script.charAt(index) : 0;
+    }
+
+    private static Token.Type punctuation(char c) {
+        switch (c) {
+            case '.':
+                return Token.Type.DOT;
+            case ',':
+                return Token.Type.COMMA;
+            case ';':
+                return Token.Type.SEMICOLON;
+            case '(':
+                return Token.Type.LPAREN;
+            case ')':
+                return Token.Type.RPAREN;
+            case '[':
+                return Token.Type.LBRACKET;
+            case ']':
+                return Token.Type.RBRACKET;
+            case '{':
+                return Token.Type.LBRACE;
+            case '}':
+                return Token.Type.RBRACE;
+            default:
+                return Token.Type.OPERATOR;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
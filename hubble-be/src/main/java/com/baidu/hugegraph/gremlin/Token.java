@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+/**
+ * The token of gremlin-groovy script, all the tokens including whitespaces
+ * and comments are kept, so that the script can be restored from them
+ */
+public final class Token {
+
+    public enum Type {
+
+        WHITESPACE,
+        NEWLINE,
+        COMMENT,
+        STRING,
+        NUMBER,
+        IDENT,
+        DOT,
+        COMMA,
+        SEMICOLON,
+        LPAREN,
+        RPAREN,
+        LBRACKET,
+        RBRACKET,
+        LBRACE,
+        RBRACE,
+        OPERATOR;
+
+        public boolean isTrivial() {
+            return this == WHITESPACE || this == NEWLINE || this == COMMENT;
+        }
+
+        public boolean isOpen() {
+            return this == LPAREN || this == LBRACKET || this == LBRACE;
+        }
+
+        public boolean isClose() {
+            return this == RPAREN || this == RBRACKET || this == RBRACE;
+        }
+    }
+
+    private final Type type;
+    private final String text;
+
+    public Token(Type type, String text) {
+        this.type = type;
+        this.text = text;
+    }
+
+    public Type type() {
+        return this.type;
+    }
+
+    public String text() {
+        return this.text;
+    }
+
+    public boolean is(Type type) {
+        return this.type == type;
+    }
+
+    public boolean is(Type type, String text) {
+        return this.type == type && this.text.equals(text);
+    }
+
+    @Override
+    public String toString() {
+        return this.type + "(" + this.text + ")";
+    }
+}
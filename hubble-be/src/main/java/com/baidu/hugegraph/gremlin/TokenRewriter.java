@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin;
+
+import java.util.List;
+
+/**
+ * Record the edits on tokens and apply them at last, so that the rules
+ * can edit by the token positions of the original script. The text
+ * inserted around a deleted token is still kept.
+ */
+public final class TokenRewriter {
+
+    private final List<Token> tokens;
+    private final String[] befores;
+    private final String[] afters;
+    private final boolean[] deleted;
+    private boolean changed;
+
+    public TokenRewriter(List<Token> tokens) {
+        this.tokens = tokens;
+        this.befores = new String[tokens.size()];
+        this.afters = new String[tokens.size()];
+        this.deleted = new boolean[tokens.size()];
+        this.changed = false;
+    }
+
+    public void insertBefore(int index, String text) {
+        this.befores[index] = this.befores[index] == null ?
+                              text : this.befores[index] + text;
+        this.changed = true;
+    }
+
+    public void insertAfter(int index, String text) {
+        this.afters[index] = this.afters[index] == null ?
+                             text : this.afters[index] + text;
+        this.changed = true;
+    }
+
+    public void delete(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            this.deleted[i] = true;
+        }
+        this.changed = true;
+    }
+
+    public boolean deleted(int index) {
+        return this.deleted[index];
+    }
+
+    public boolean changed() {
+        return this.changed;
+    }
+
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.tokens.size(); i++) {
+            if (this.befores[i] != null) {
+                sb.append(this.befores[i]);
+            }
+            if (!this.deleted[i]) {
+                sb.append(this.tokens.get(i).text());
+            }
+            if (this.afters[i] != null) {
+                sb.append(this.afters[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin.rule;
+
+import java.util.List;
+import java.util.Set;
+
+import com.baidu.hugegraph.gremlin.GremlinScript;
+import com.baidu.hugegraph.gremlin.GremlinScript.Argument;
+import com.baidu.hugegraph.gremlin.GremlinScript.Step;
+import com.baidu.hugegraph.gremlin.GremlinScript.Traversal;
+import com.baidu.hugegraph.gremlin.RewriteRule;
+import com.baidu.hugegraph.gremlin.Token;
+import com.baidu.hugegraph.gremlin.TokenRewriter;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Stop counting once the result of comparison is known, like
+ * where(out().count().is(gt(3))) to where(out().limit(4).count().is(gt(3))).
+ * Comparing the count with n only needs to count at most n + 1 elements.
+ * It's only applied to the traversal checked by a filter step, otherwise
+ * the count itself is the result, like g.V().count().is(gt(3)) and
+ * by(out().count().is(gt(3))). The traversal with mutation isn't limited.
+ */
+public class CountRule implements RewriteRule {
+
+    public static final String NAME = "count";
+
+    private static final Set<String> PREDICATES = ImmutableSet.of(
+            "eq", "neq", "gt", "gte", "lt", "lte"
+    );
+
+    private static final Set<String> LIMITED_STEPS = ImmutableSet.of(
+            "limit", "range", "tail"
+    );
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void rewrite(GremlinScript script, TokenRewriter rewriter) {
+        for (Traversal traversal : script.traversals()) {
+            if (!traversal.checkedForExistence() ||
+                traversal.containsDeeply(GremlinScript.MUTATION_STEPS)) {
+                continue;
+            }
+            List<Step> steps = traversal.steps();
+            for (int i = 0; i < steps.size() - 1; i++) {
+                Step count = steps.get(i);
+                Step is = steps.get(i + 1);
+                if (!count.is("count", 0) || !is.is("is", 1)) {
+                    continue;
+                }
+                Step prev = traversal.step(i - 1);
+                if (prev != null && LIMITED_STEPS.contains(prev.name())) {
+                    continue;
+                }
+                long bound = bound(is.argument(0), script.tokens());
+                if (bound < 0) {
+                    continue;
+                }
+                String limitStep = "limit(" + (bound + 1) + ")";
+                if (count.chained()) {
+                    rewriter.insertBefore(count.start(), "." + limitStep);
+                } else {
+                    // The count starts an anonymous traversal
+                    rewriter.insertBefore(count.start(), limitStep + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number compared with, or -1 if it's not a comparison
+     * with non-negative integer
+     */
+    private static long bound(Argument argument, List<Token> tokens) {
+        if (argument.isSingle(Token.Type.NUMBER, tokens)) {
+            return integer(tokens.get(argument.start()).text());
+        }
+        Traversal predicate = argument.asTraversal();
+        if (predicate == null || predicate.steps().size() != 1 ||
+            (predicate.source() != null && !"P".equals(predicate.source()))) {
+            return -1L;
+        }
+        Step step = predicate.step(0);
+        if (!step.isCall() || !PREDICATES.contains(step.name()) ||
+            step.arguments().size() != 1 ||
+            !step.argument(0).isSingle(Token.Type.NUMBER, tokens)) {
+            return -1L;
+        }
+        return integer(tokens.get(step.argument(0).start()).text());
+    }
+
+    private static long integer(String text) {
+        String number = text.replace("_", "");
+        if (number.endsWith("L") || number.endsWith("l")) {
+            number = number.substring(0, number.length() - 1);
+        }
+        if (number.isEmpty() || number.length() > 9) {
+            return -1L;
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                return -1L;
+            }
+        }
+        return Long.parseLong(number);
+    }
+}
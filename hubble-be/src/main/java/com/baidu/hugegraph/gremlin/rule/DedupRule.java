@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin.rule;
+
+import java.util.List;
+
+import com.baidu.hugegraph.gremlin.GremlinScript;
+import com.baidu.hugegraph.gremlin.GremlinScript.Step;
+import com.baidu.hugegraph.gremlin.GremlinScript.Traversal;
+import com.baidu.hugegraph.gremlin.RewriteRule;
+import com.baidu.hugegraph.gremlin.TokenRewriter;
+
+/**
+ * Place the dedup() before order() so that less elements are sorted, like
+ * order().by('name').dedup() to dedup().order().by('name'), and remove
+ * the repeated dedup(). Only the dedup() without arguments or by() is
+ * moved, the same elements are sorted to the same place anyway.
+ */
+public class DedupRule implements RewriteRule {
+
+    public static final String NAME = "dedup";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void rewrite(GremlinScript script, TokenRewriter rewriter) {
+        for (Traversal traversal : script.traversals()) {
+            List<Step> steps = traversal.steps();
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                if (isDedup(traversal, i) && isDedup(traversal, i - 1)) {
+                    // Repeated with the previous one
+                    rewriter.delete(step.start(), step.end());
+                    continue;
+                }
+                if (!step.is("order", 0) || !step.chained()) {
+                    continue;
+                }
+                int j = i + 1;
+                while (j < steps.size() && steps.get(j).isCall() &&
+                       "by".equals(steps.get(j).name())) {
+                    j++;
+                }
+                if (isDedup(traversal, j)) {
+                    Step dedup = steps.get(j);
+                    rewriter.delete(dedup.start(), dedup.end());
+                    // No need to move if there is one before order()
+                    if (!isDedup(traversal, i - 1)) {
+                        rewriter.insertBefore(step.start(), ".dedup()");
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isDedup(Traversal traversal, int index) {
+        Step step = traversal.step(index);
+        if (step == null || !step.is("dedup", 0) || !step.chained()) {
+            return false;
+        }
+        // The dedup().by(...) compares by the modulator
+        Step next = traversal.step(index + 1);
+        return next == null || !"by".equals(next.name());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin.rule;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+import com.baidu.hugegraph.gremlin.GremlinScript;
+import com.baidu.hugegraph.gremlin.GremlinScript.Argument;
+import com.baidu.hugegraph.gremlin.GremlinScript.Step;
+import com.baidu.hugegraph.gremlin.GremlinScript.Traversal;
+import com.baidu.hugegraph.gremlin.RewriteRule;
+import com.baidu.hugegraph.gremlin.Token;
+import com.baidu.hugegraph.gremlin.TokenRewriter;
+
+/**
+ * Fold the id filter into V() or E(), like g.V().hasId('a', 'b') or
+ * g.V().has(T.id, 'a') to g.V('a', 'b'), so that the server looks up the
+ * ids in batch rather than scanning all and filtering. Only the literal
+ * ids are folded.
+ */
+public class IdLookupRule implements RewriteRule {
+
+    public static final String NAME = "id_lookup";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void rewrite(GremlinScript script, TokenRewriter rewriter) {
+        for (Traversal traversal : script.traversals()) {
+            if (!traversal.onGraph() || traversal.steps().size() < 2) {
+                continue;
+            }
+            Step graphStep = traversal.step(0);
+            Step filter = traversal.step(1);
+            if (!graphStep.arguments().isEmpty()) {
+                continue;
+            }
+            List<Argument> ids = idArguments(filter, script);
+            if (ids == null) {
+                continue;
+            }
+            StringJoiner joiner = new StringJoiner(", ");
+            for (Argument id : ids) {
+                joiner.add(script.text(id.start(), id.end()));
+            }
+            rewriter.insertAfter(graphStep.open(), joiner.toString());
+            rewriter.delete(filter.start(), filter.end());
+        }
+    }
+
+    private static List<Argument> idArguments(Step filter,
+                                              GremlinScript script) {
+        List<Argument> arguments = filter.arguments();
+        if (!filter.isCall() || arguments.isEmpty()) {
+            return null;
+        }
+        if ("hasId".equals(filter.name())) {
+            return allLiteral(arguments, script) ? arguments : null;
+        }
+        if (filter.is("has", 2)) {
+            Argument key = arguments.get(0);
+            String keyText = script.text(key.start(), key.end());
+            List<Argument> values = arguments.subList(1, 2);
+            if (("T.id".equals(keyText) || "id".equals(keyText)) &&
+                allLiteral(values, script)) {
+                return values;
+            }
+        }
+        return null;
+    }
+
+    private static boolean allLiteral(List<Argument> arguments,
+                                      GremlinScript script) {
+        for (Argument argument : arguments) {
+            if (!argument.isSingle(Token.Type.STRING, script.tokens()) &&
+                !argument.isSingle(Token.Type.NUMBER, script.tokens())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.gremlin.rule;
+
+import java.util.Set;
+
+import com.baidu.hugegraph.gremlin.GremlinScript;
+import com.baidu.hugegraph.gremlin.GremlinScript.Statement;
+import com.baidu.hugegraph.gremlin.GremlinScript.Step;
+import com.baidu.hugegraph.gremlin.GremlinScript.Traversal;
+import com.baidu.hugegraph.gremlin.RewriteRule;
+import com.baidu.hugegraph.gremlin.TokenRewriter;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Append limit(n) to the traversal on graph which ends a statement, and
+ * limit(1) to the anonymous traversal only checked for existence like
+ * where(out('knows')). The traversals with mutation are not limited, even
+ * if it's nested like coalesce(has('x'), property('x', 1)).
+ */
+public class LimitRule implements RewriteRule {
+
+    public static final String NAME = "limit";
+
+    /**
+     * The steps that may produce too many results without reducing
+     */
+    private static final Set<String> STREAM_STEPS = ImmutableSet.of(
+            "V", "E", "out", "in", "both", "outE", "inE", "bothE", "outV",
+            "inV", "bothV", "otherV", "path", "simplePath", "cyclicPath",
+            "has", "hasLabel", "hasId", "hasKey", "hasValue", "hasNot",
+            "values", "valueMap", "properties", "id", "label", "dedup",
+            "where", "filter", "not", "and", "or", "is", "union",
+            "coalesce", "optional", "repeat", "times", "until", "emit",
+            "unfold", "identity"
+    );
+
+    // The results after them are already reduced
+    private static final Set<String> REDUCING_STEPS = ImmutableSet.of(
+            "count", "sum", "max", "min", "mean", "fold", "group",
+            "groupCount", "cap"
+    );
+
+    private final int limit;
+
+    public LimitRule(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void rewrite(GremlinScript script, TokenRewriter rewriter) {
+        String limitStep = ".limit(" + this.limit + ")";
+        for (Statement statement : script.statements()) {
+            Traversal traversal = statement.result();
+            if (traversal != null && traversal.onGraph() &&
+                limitable(traversal)) {
+                rewriter.insertAfter(traversal.lastStep().end(), limitStep);
+            }
+        }
+        for (Traversal traversal : script.traversals()) {
+            if (traversal.checkedForExistence() && limitable(traversal)) {
+                rewriter.insertAfter(traversal.lastStep().end(), ".limit(1)");
+            }
+        }
+    }
+
+    private static boolean limitable(Traversal traversal) {
+        Step last = traversal.lastStep();
+        if (last == null || !last.isCall() ||
+            !STREAM_STEPS.contains(last.name())) {
+            return false;
+        }
+        if ("hasLabel".equals(last.name()) && last.arguments().isEmpty()) {
+            return false;
+        }
+        return !traversal.containsDeeply(GremlinScript.MUTATION_STEPS) &&
+               !traversal.contains(REDUCING_STEPS);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The force-directed layout like ForceAtlas2: the vertices repulse each
+ * other by kr * (deg1 + 1) * (deg2 + 1) / d which is approximated by
+ * Barnes-Hut tree, the edges attract their vertices by d, and the gravity
+ * pulls the vertices to the origin. The step of vertex is adapted by its
+ * swinging and the global speed. The forces of vertices are computed by
+ * chunks in parallel, and the fixed vertices only repulse the others.
+ */
+public final class ForceLayout {
+
+    // Compute in the caller thread if the graph is smaller than this
+    private static final int PARALLEL_THRESHOLD = 1000;
+    private static final double THETA = 1.2;
+    private static final double GRAVITY = 1.0;
+    private static final double JITTER_TOLERANCE = 1.0;
+    private static final double MIN_SPEED_EFFICIENCY = 0.05;
+    private static final double MAX_SPEED_RISE = 0.5;
+
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public ForceLayout(ExecutorService executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Move the vertices which are not fixed for the iterations
+     */
+    public void run(LayoutGraph graph, int iterations)
+                    throws InterruptedException {
+        int size = graph.size();
+        if (size == 0) {
+            return;
+        }
+        State state = new State(graph);
+        for (int i = 0; i < iterations; i++) {
+            QuadTree tree = new QuadTree(graph.x, graph.y, graph.mass);
+            this.computeForces(graph, tree, state);
+            if (!state.move(graph)) {
+                // All vertices are fixed or balanced
+                break;
+            }
+        }
+    }
+
+    private void computeForces(LayoutGraph graph, QuadTree tree, State state)
+                               throws InterruptedException {
+        int size = graph.size();
+        double ratio = size >= 100 ? 2.0 : 10.0;
+        if (size < PARALLEL_THRESHOLD || this.parallelism <= 1) {
+            computeForces(graph, tree, state, ratio, 0, size);
+            return;
+        }
+
+        int chunks = this.parallelism * 4;
+        int chunkSize = (size + chunks - 1) / chunks;
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int from = 0; from < size; from += chunkSize) {
+            int start = from;
+            int end = Math.min(size, from + chunkSize);
+            tasks.add(() -> {
+                computeForces(graph, tree, state, ratio, start, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : this.executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void computeForces(LayoutGraph graph, QuadTree tree,
+                                      State state, double ratio,
+                                      int from, int to) {
+        double[] force = new double[2];
+        int[] stack = new int[tree.stackSize()];
+        double[] x = graph.x;
+        double[] y = graph.y;
+        for (int i = from; i < to; i++) {
+            if (graph.fixed[i]) {
+                continue;
+            }
+            force[0] = 0.0;
+            force[1] = 0.0;
+            // Repulsion
+            tree.repulse(i, ratio, THETA, force, stack);
+            // Attraction by edges
+            for (int k = graph.offsets[i]; k < graph.offsets[i + 1]; k++) {
+                int j = graph.neighbors[k];
+                force[0] += x[j] - x[i];
+                force[1] += y[j] - y[i];
+            }
+            // Gravity
+            double distance = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+            if (distance > 0.0) {
+                double f = GRAVITY * graph.mass[i] / distance;
+                force[0] -= x[i] * f;
+                force[1] -= y[i] * f;
+            }
+            state.fx[i] = force[0];
+            state.fy[i] = force[1];
+        }
+    }
+
+    /**
+     * The forces of the last two iterations and the global speed
+     */
+    private static class State {
+
+        private final double[] fx;
+        private final double[] fy;
+        private final double[] oldFx;
+        private final double[] oldFy;
+        private double speed = 1.0;
+        private double speedEfficiency = 1.0;
+
+        private State(LayoutGraph graph) {
+            int size = graph.size();
+            this.fx = new double[size];
+            this.fy = new double[size];
+            this.oldFx = new double[size];
+            this.oldFy = new double[size];
+        }
+
+        /**
+         * Adjust the speed by the swinging and traction of all vertices,
+         * then move the vertices, return false if nothing to move
+         */
+        private boolean move(LayoutGraph graph) {
+            int size = graph.size();
+            double totalSwinging = 0.0;
+            double totalTraction = 0.0;
+            int moving = 0;
+            for (int i = 0; i < size; i++) {
+                if (graph.fixed[i]) {
+                    continue;
+                }
+                double mass = graph.mass[i];
+                totalSwinging += mass * length(this.oldFx[i] - this.fx[i],
+                                               this.oldFy[i] - this.fy[i]);
+                totalTraction += mass * length(this.oldFx[i] + this.fx[i],
+                                               this.oldFy[i] + this.fy[i]) /
+                                 2.0;
+                moving++;
+            }
+            if (moving == 0 || totalSwinging <= 0.0) {
+                return false;
+            }
+
+            double estimated = 0.05 * Math.sqrt(moving);
+            double tolerance = JITTER_TOLERANCE *
+                               Math.max(Math.sqrt(estimated),
+                                        Math.min(10.0, estimated *
+                                                 totalTraction /
+                                                 ((double) moving * moving)));
+            if (totalSwinging / totalTraction > 2.0) {
+                if (this.speedEfficiency > MIN_SPEED_EFFICIENCY) {
+                    this.speedEfficiency *= 0.5;
+                }
+                tolerance = Math.max(tolerance, JITTER_TOLERANCE);
+            }
+            double targetSpeed = tolerance * this.speedEfficiency *
+                                 totalTraction / totalSwinging;
+            if (totalSwinging > tolerance * totalTraction) {
+                if (this.speedEfficiency > MIN_SPEED_EFFICIENCY) {
+                    this.speedEfficiency *= 0.7;
+                }
+            } else if (this.speed < 1000) {
+                this.speedEfficiency *= 1.3;
+            }
+            this.speed += Math.min(targetSpeed - this.speed,
+                                   MAX_SPEED_RISE * this.speed);
+
+            for (int i = 0; i < size; i++) {
+                if (graph.fixed[i]) {
+                    continue;
+                }
+                double swinging = graph.mass[i] *
+                                  length(this.oldFx[i] - this.fx[i],
+                                         this.oldFy[i] - this.fy[i]);
+                double factor = this.speed /
+                                (1.0 + Math.sqrt(this.speed * swinging));
+                graph.x[i] += this.fx[i] * factor;
+                graph.y[i] += this.fy[i] * factor;
+                this.oldFx[i] = this.fx[i];
+                this.oldFy[i] = this.fy[i];
+            }
+            return true;
+        }
+
+        private static double length(double dx, double dy) {
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+}
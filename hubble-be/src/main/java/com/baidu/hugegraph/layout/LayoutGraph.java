@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.layout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.baidu.hugegraph.util.E;
+
+/**
+ * The graph to be laid out in primitive arrays, the vertices are indexed
+ * from 0 in the order of adding, and the edges are stored as adjacency
+ * lists in CSR format. The positions are updated by ForceLayout in place.
+ */
+public final class LayoutGraph {
+
+    private final Object[] ids;
+    private final Map<Object, Integer> indexes;
+
+    final double[] x;
+    final double[] y;
+    // The mass of vertex is its degree plus one like ForceAtlas2
+    final double[] mass;
+    final boolean[] fixed;
+    final int[] offsets;
+    final int[] neighbors;
+
+    private LayoutGraph(Object[] ids, Map<Object, Integer> indexes,
+                        double[] x, double[] y, double[] mass,
+                        boolean[] fixed, int[] offsets, int[] neighbors) {
+        this.ids = ids;
+        this.indexes = indexes;
+        this.x = x;
+        this.y = y;
+        this.mass = mass;
+        this.fixed = fixed;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    public Object id(int index) {
+        return this.ids[index];
+    }
+
+    public int index(Object id) {
+        Integer index = this.indexes.get(id);
+        return index != null ? index : -1;
+    }
+
+    public double x(int index) {
+        return this.x[index];
+    }
+
+    public double y(int index) {
+        return this.y[index];
+    }
+
+    public int degree(int index) {
+        return (int) this.mass[index] - 1;
+    }
+
+    public static class Builder {
+
+        private final Map<Object, Integer> indexes = new HashMap<>();
+        private Object[] ids = new Object[16];
+        private double[] x = new double[16];
+        private double[] y = new double[16];
+        private int[] degrees = new int[16];
+        private boolean[] fixed = new boolean[16];
+        private int size = 0;
+
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int edges = 0;
+
+        public boolean contains(Object id) {
+            return this.indexes.containsKey(id);
+        }
+
+        public double x(Object id) {
+            return this.x[this.indexes.get(id)];
+        }
+
+        public double y(Object id) {
+            return this.y[this.indexes.get(id)];
+        }
+
+        /**
+         * Add a vertex at the initial position, the degree is added to the
+         * edges added later, it keeps the mass of a vertex laid out before.
+         * The vertex added again is ignored.
+         */
+        public Builder vertex(Object id, double x, double y, boolean fixed,
+                              int degree) {
+            E.checkArgument(!Double.isNaN(x) && !Double.isNaN(y),
+                            "The position of vertex '%s' can't be NaN", id);
+            if (this.indexes.containsKey(id)) {
+                return this;
+            }
+            if (this.size == this.ids.length) {
+                int capacity = this.size * 2;
+                this.ids = Arrays.copyOf(this.ids, capacity);
+                this.x = Arrays.copyOf(this.x, capacity);
+                this.y = Arrays.copyOf(this.y, capacity);
+                this.degrees = Arrays.copyOf(this.degrees, capacity);
+                this.fixed = Arrays.copyOf(this.fixed, capacity);
+            }
+            this.ids[this.size] = id;
+            this.x[this.size] = x;
+            this.y[this.size] = y;
+            this.degrees[this.size] = degree;
+            this.fixed[this.size] = fixed;
+            this.indexes.put(id, this.size++);
+            return this;
+        }
+
+        /**
+         * Add an edge between the vertices added before, the edge linked to
+         * a missing vertex or itself is ignored
+         */
+        public Builder edge(Object source, Object target) {
+            Integer sourceIndex = this.indexes.get(source);
+            Integer targetIndex = this.indexes.get(target);
+            if (sourceIndex == null || targetIndex == null ||
+                sourceIndex.equals(targetIndex)) {
+                return this;
+            }
+            if (this.edges == this.sources.length) {
+                int capacity = this.edges * 2;
+                this.sources = Arrays.copyOf(this.sources, capacity);
+                this.targets = Arrays.copyOf(this.targets, capacity);
+            }
+            this.sources[this.edges] = sourceIndex;
+            this.targets[this.edges] = targetIndex;
+            this.edges++;
+            return this;
+        }
+
+        public LayoutGraph build() {
+            int size = this.size;
+            // Count the edges of per vertex, then fill the adjacency lists
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < this.edges; i++) {
+                offsets[this.sources[i] + 1]++;
+                offsets[this.targets[i] + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] neighbors = new int[this.edges * 2];
+            int[] positions = Arrays.copyOf(offsets, size);
+            for (int i = 0; i < this.edges; i++) {
+                int source = this.sources[i];
+                int target = this.targets[i];
+                neighbors[positions[source]++] = target;
+                neighbors[positions[target]++] = source;
+            }
+
+            double[] mass = new double[size];
+            for (int i = 0; i < size; i++) {
+                mass[i] = this.degrees[i] + offsets[i + 1] - offsets[i] + 1;
+            }
+            return new LayoutGraph(Arrays.copyOf(this.ids, size),
+                                   new HashMap<>(this.indexes),
+                                   Arrays.copyOf(this.x, size),
+                                   Arrays.copyOf(this.y, size), mass,
+                                   Arrays.copyOf(this.fixed, size),
+                                   offsets, neighbors);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.layout;
+
+import java.util.Arrays;
+
+/**
+ * The Barnes-Hut tree of vertex positions in primitive arrays. A cell
+ * covers a square and a range of the vertices ordered by cell, its
+ * children are stored contiguously. It's read-only after building, so
+ * that the repulsion of vertices can be computed in parallel.
+ */
+final class QuadTree {
+
+    private static final int LEAF_SIZE = 8;
+    private static final int MAX_DEPTH = 32;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] mass;
+    private final int[] order;
+
+    private int cells = 0;
+    private int[] start;
+    private int[] end;
+    private int[] firstChild;
+    private int[] children;
+    private double[] cellMass;
+    private double[] centerX;
+    private double[] centerY;
+    private double[] minX;
+    private double[] minY;
+    private double[] side;
+
+    QuadTree(double[] x, double[] y, double[] mass) {
+        this.x = x;
+        this.y = y;
+        this.mass = mass;
+        int size = x.length;
+        this.order = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.order[i] = i;
+        }
+        int capacity = Math.max(16, size / 2);
+        this.start = new int[capacity];
+        this.end = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.children = new int[capacity];
+        this.cellMass = new double[capacity];
+        this.centerX = new double[capacity];
+        this.centerY = new double[capacity];
+        this.minX = new double[capacity];
+        this.minY = new double[capacity];
+        this.side = new double[capacity];
+        if (size > 0) {
+            this.build();
+        }
+    }
+
+    private void build() {
+        double left = Double.MAX_VALUE;
+        double bottom = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+        double top = -Double.MAX_VALUE;
+        for (int i = 0; i < this.x.length; i++) {
+            left = Math.min(left, this.x[i]);
+            right = Math.max(right, this.x[i]);
+            bottom = Math.min(bottom, this.y[i]);
+            top = Math.max(top, this.y[i]);
+        }
+        // Enlarge a little to keep the vertices on the edge inside
+        double width = Math.max(right - left, top - bottom) * 1.001 + 1e-9;
+
+        int[] stack = new int[64];
+        int[] depths = new int[64];
+        int pending = 0;
+        stack[pending] = this.newCell(0, this.x.length, left, bottom, width);
+        depths[pending++] = 0;
+        while (pending > 0) {
+            int cell = stack[--pending];
+            int depth = depths[pending];
+            this.summarize(cell);
+            if (this.end[cell] - this.start[cell] <= LEAF_SIZE ||
+                depth >= MAX_DEPTH) {
+                continue;
+            }
+            this.split(cell);
+            for (int i = 0; i < this.children[cell]; i++) {
+                if (pending == stack.length) {
+                    stack = Arrays.copyOf(stack, pending * 2);
+                    depths = Arrays.copyOf(depths, pending * 2);
+                }
+                stack[pending] = this.firstChild[cell] + i;
+                depths[pending++] = depth + 1;
+            }
+        }
+    }
+
+    private void summarize(int cell) {
+        double total = 0.0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (int k = this.start[cell]; k < this.end[cell]; k++) {
+            int i = this.order[k];
+            total += this.mass[i];
+            sumX += this.x[i] * this.mass[i];
+            sumY += this.y[i] * this.mass[i];
+        }
+        this.cellMass[cell] = total;
+        this.centerX[cell] = sumX / total;
+        this.centerY[cell] = sumY / total;
+    }
+
+    /**
+     * Partition the vertices of cell into four quadrants, the empty
+     * quadrants are not created
+     */
+    private void split(int cell) {
+        int from = this.start[cell];
+        int to = this.end[cell];
+        double half = this.side[cell] / 2;
+        double midX = this.minX[cell] + half;
+        double midY = this.minY[cell] + half;
+
+        int lower = this.partition(from, to, midY, false);
+        int lowerLeft = this.partition(from, lower, midX, true);
+        int upperLeft = this.partition(lower, to, midX, true);
+        int[] bounds = {from, lowerLeft, lower, upperLeft, to};
+
+        this.firstChild[cell] = this.cells;
+        int count = 0;
+        for (int q = 0; q < 4; q++) {
+            if (bounds[q] == bounds[q + 1]) {
+                continue;
+            }
+            double childX = (q & 1) == 0 ? this.minX[cell] : midX;
+            double childY = q < 2 ? this.minY[cell] : midY;
+            this.newCell(bounds[q], bounds[q + 1], childX, childY, half);
+            count++;
+        }
+        this.children[cell] = count;
+    }
+
+    /**
+     * Move the vertices less than the pivot to the front of the range,
+     * return the index of the first vertex not less than the pivot
+     */
+    private int partition(int from, int to, double pivot, boolean byX) {
+        double[] values = byX ? this.x : this.y;
+        int i = from;
+        int j = to - 1;
+        while (i <= j) {
+            if (values[this.order[i]] < pivot) {
+                i++;
+            } else {
+                int temp = this.order[i];
+                this.order[i] = this.order[j];
+                this.order[j--] = temp;
+            }
+        }
+        return i;
+    }
+
+    private int newCell(int from, int to, double left, double bottom,
+                        double width) {
+        if (this.cells == this.start.length) {
+            int capacity = this.cells * 2;
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.end = Arrays.copyOf(this.end, capacity);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.children = Arrays.copyOf(this.children, capacity);
+            this.cellMass = Arrays.copyOf(this.cellMass, capacity);
+            this.centerX = Arrays.copyOf(this.centerX, capacity);
+            this.centerY = Arrays.copyOf(this.centerY, capacity);
+            this.minX = Arrays.copyOf(this.minX, capacity);
+            this.minY = Arrays.copyOf(this.minY, capacity);
+            this.side = Arrays.copyOf(this.side, capacity);
+        }
+        int cell = this.cells++;
+        this.start[cell] = from;
+        this.end[cell] = to;
+        this.children[cell] = 0;
+        this.minX[cell] = left;
+        this.minY[cell] = bottom;
+        this.side[cell] = width;
+        return cell;
+    }
+
+    /**
+     * Accumulate the ForceAtlas2 repulsion kr * m1 * m2 / d on vertex i
+     * into force[0] and force[1], the cell far enough is approximated by
+     * its center of mass. The stack is passed by caller to be reused.
+     */
+    void repulse(int i, double ratio, double theta, double[] force,
+                 int[] stack) {
+        if (this.cells == 0) {
+            return;
+        }
+        double xi = this.x[i];
+        double yi = this.y[i];
+        double mi = this.mass[i];
+        double theta2 = theta * theta;
+        double fx = 0.0;
+        double fy = 0.0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            if (this.children[cell] == 0) {
+                for (int k = this.start[cell]; k < this.end[cell]; k++) {
+                    int j = this.order[k];
+                    if (j == i) {
+                        continue;
+                    }
+                    double dx = xi - this.x[j];
+                    double dy = yi - this.y[j];
+                    double d2 = dx * dx + dy * dy;
+                    if (d2 > 0.0) {
+                        double f = ratio * mi * this.mass[j] / d2;
+                        fx += dx * f;
+                        fy += dy * f;
+                    }
+                }
+                continue;
+            }
+            double dx = xi - this.centerX[cell];
+            double dy = yi - this.centerY[cell];
+            double d2 = dx * dx + dy * dy;
+            double width = this.side[cell];
+            if (width * width < theta2 * d2 && !this.inside(cell, xi, yi)) {
+                double f = ratio * mi * this.cellMass[cell] / d2;
+                fx += dx * f;
+                fy += dy * f;
+                continue;
+            }
+            int first = this.firstChild[cell];
+            for (int c = 0; c < this.children[cell]; c++) {
+                stack[top++] = first + c;
+            }
+        }
+        force[0] += fx;
+        force[1] += fy;
+    }
+
+    /**
+     * The max size of stack used by repulse()
+     */
+    int stackSize() {
+        return 4 * MAX_DEPTH + 4;
+    }
+
+    private boolean inside(int cell, double px, double py) {
+        double left = this.minX[cell];
+        double bottom = this.minY[cell];
+        double width = this.side[cell];
+        return px >= left && px < left + width &&
+               py >= bottom && py < bottom + width;
+    }
+}
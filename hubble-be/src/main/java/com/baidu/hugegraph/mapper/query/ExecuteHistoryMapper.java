@@ -19,20 +19,55 @@
 
 package com.baidu.hugegraph.mapper.query;
 
-import org.apache.ibatis.annotations.Delete;
+import java.util.List;
+
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Component;
 
 import com.baidu.hugegraph.entity.query.ExecuteHistory;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.google.common.collect.Lists;
 
 @Mapper
 @Component
 public interface ExecuteHistoryMapper extends BaseMapper<ExecuteHistory> {
 
-    @Delete("DELETE FROM `execute_history` WHERE `id` IN (" +
-            "SELECT `id` FROM `execute_history` ORDER BY `create_time` DESC " +
-            "LIMIT ${limit} OFFSET ${limit})")
-    void deleteExceedLimit(@Param("limit") int limit);
+    int DELETE_BATCH_SIZE = 500;
+
+    /**
+     * Select at most count ids of the connection older than the newest
+     * limit histories, it's done by scanning the index of connection
+     */
+    @Select("SELECT `id` FROM `execute_history` WHERE `conn_id` = #{conn_id} " +
+            "ORDER BY `create_time` DESC, `id` DESC " +
+            "LIMIT #{count} OFFSET #{limit}")
+    List<Integer> selectExceedLimit(@Param("conn_id") int connId,
+                                    @Param("limit") int limit,
+                                    @Param("count") int count);
+
+    /**
+     * NOTE: the ids are selected before deleting, H2 doesn't delete
+     * correctly with a "LIMIT ... OFFSET" subquery of the same table
+     */
+    default int deleteExceedLimit(int connId, int limit, int count) {
+        List<Integer> ids = this.selectExceedLimit(connId, limit, count);
+        int rows = 0;
+        for (List<Integer> batch : Lists.partition(ids, DELETE_BATCH_SIZE)) {
+            rows += this.deleteBatchIds(batch);
+        }
+        return rows;
+    }
+
+    /**
+     * Count the histories of connection but no more than limit
+     */
+    @Select("SELECT COUNT(*) FROM (" +
+            "SELECT 1 FROM `execute_history` WHERE `conn_id` = #{conn_id} " +
+            "LIMIT #{limit}) AS `t`")
+    long countUpTo(@Param("conn_id") int connId, @Param("limit") int limit);
+
+    @Select("SELECT DISTINCT `conn_id` FROM `execute_history`")
+    List<Integer> selectConnIds();
 }
@@ -20,32 +20,12 @@
 package com.baidu.hugegraph.mapper.query;
 
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Component;
 
 import com.baidu.hugegraph.entity.query.GremlinCollection;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
 
 @Mapper
 @Component
 public interface GremlinCollectionMapper extends BaseMapper<GremlinCollection> {
-
-    @Select("SELECT * FROM `gremlin_collection` " +
-            "WHERE `conn_id` = #{conn_id} AND " +
-            "(`name` LIKE concat('%', #{content}, '%') OR " +
-            "`content` LIKE concat('%', #{content}, '%')) " +
-            "ORDER BY " +
-            "   CASE " +
-            "       WHEN `name` LIKE '%${content}%' AND " +
-            "            `content` LIKE '%${content}%' THEN 0 " +
-            "       WHEN `name` LIKE '%${content}%' THEN 1 " +
-            "       WHEN `content` LIKE '%${content}%' THEN 2 " +
-            "   END ASC, " +
-            "   `create_time` DESC")
-    IPage<GremlinCollection> selectByContentInPage(IPage<GremlinCollection> page,
-                                                   @Param("conn_id") int connId,
-                                                   @Param("content")
-                                                   String content);
 }
@@ -19,9 +19,14 @@
 
 package com.baidu.hugegraph.options;
 
+import static com.baidu.hugegraph.config.OptionChecker.allowValues;
 import static com.baidu.hugegraph.config.OptionChecker.disallowEmpty;
 import static com.baidu.hugegraph.config.OptionChecker.rangeInt;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.baidu.hugegraph.config.ConfigListOption;
 import com.baidu.hugegraph.config.ConfigOption;
 import com.baidu.hugegraph.config.OptionHolder;
 
@@ -65,6 +70,93 @@ public class HubbleOptions extends OptionHolder {
                     8088
             );
 
+    public static final ConfigOption<Boolean> SERVER_COMPRESSION_ENABLED =
+            new ConfigOption<>(
+                    "server.compression.enabled",
+                    "Whether to compress the responses by gzip if the " +
+                    "client accepts it.",
+                    disallowEmpty(),
+                    true
+            );
+
+    public static final ConfigOption<Integer> SERVER_COMPRESSION_MIN_SIZE =
+            new ConfigOption<>(
+                    "server.compression.min_size",
+                    "The min size in bytes of the response to be compressed, " +
+                    "it only works for the responses with content length, " +
+                    "the others like the json written in chunks are always " +
+                    "compressed.",
+                    rangeInt(0, Integer.MAX_VALUE),
+                    2048
+            );
+
+    public static final ConfigListOption<String> SERVER_COMPRESSION_MIME_TYPES =
+            new ConfigListOption<>(
+                    "server.compression.mime_types",
+                    false,
+                    "The mime types of the responses to be compressed.",
+                    disallowEmpty(),
+                    String.class,
+                    Arrays.asList("application/json", "text/html",
+                                  "text/css", "application/javascript")
+            );
+
+    public static final ConfigOption<Integer> CLIENT_POOL_BACKOFF_INITIAL =
+            new ConfigOption<>(
+                    "client-pool.backoff_initial",
+                    "The time in seconds to wait before reconnecting to a " +
+                    "graph after the first failure, it's doubled for each " +
+                    "failure in a row.",
+                    rangeInt(0, 3600),
+                    1
+            );
+
+    public static final ConfigOption<Integer> CLIENT_POOL_BACKOFF_MAX =
+            new ConfigOption<>(
+                    "client-pool.backoff_max",
+                    "The max time in seconds to wait before reconnecting " +
+                    "to a graph after failures.",
+                    rangeInt(0, 86400),
+                    60
+            );
+
+    public static final ConfigOption<Integer> CLIENT_POOL_IDLE_TIMEOUT =
+            new ConfigOption<>(
+                    "client-pool.idle_timeout",
+                    "The time in seconds to close a client which hasn't " +
+                    "been used.",
+                    rangeInt(60, Integer.MAX_VALUE),
+                    1800
+            );
+
+    public static final ConfigOption<Integer> CLIENT_POOL_CHECK_THREADS =
+            new ConfigOption<>(
+                    "client-pool.check_threads",
+                    "The number of threads to probe the health of clients.",
+                    rangeInt(1, 64),
+                    4
+            );
+
+    public static final ConfigOption<Integer> CLIENT_POOL_PROBE_TIMEOUT =
+            new ConfigOption<>(
+                    "client-pool.probe_timeout",
+                    "The timeout in seconds to probe the health of a " +
+                    "client, the client is unhealthy if timeout.",
+                    rangeInt(1, 3600),
+                    10
+            );
+
+    public static final ConfigOption<String> CLIENT_POOL_ROUTE_STRATEGY =
+            new ConfigOption<>(
+                    "client-pool.route_strategy",
+                    "The strategy to choose one of the endpoints of a " +
+                    "connection for read-only gremlin, 'latency' prefers " +
+                    "the endpoint responding fastest and 'round_robin' " +
+                    "chooses the endpoints in turn.",
+                    allowValues("latency", "round_robin"),
+                    "latency"
+            );
+
     public static final ConfigOption<Integer> GREMLIN_SUFFIX_LIMIT =
             new ConfigOption<>(
                     "gremlin.suffix_limit",
@@ -73,6 +165,18 @@ public class HubbleOptions extends OptionHolder {
                     250
             );
 
+    public static final ConfigListOption<String> GREMLIN_REWRITE_RULES =
+            new ConfigListOption<>(
+                    "gremlin.rewrite_rules",
+                    false,
+                    "The rules to rewrite gremlin before executing, in " +
+                    "[id_lookup, dedup, count, limit], the limit rule " +
+                    "appends gremlin.suffix_limit to the statements.",
+                    null,
+                    String.class,
+                    Arrays.asList("id_lookup", "dedup", "count", "limit")
+            );
+
     public static final ConfigOption<Integer> GREMLIN_VERTEX_DEGREE_LIMIT =
             new ConfigOption<>(
                     "gremlin.vertex_degree_limit",
@@ -97,6 +201,104 @@ public class HubbleOptions extends OptionHolder {
                     100
             );
 
+    public static final ConfigOption<Integer> GREMLIN_BATCH_QUERY_THREADS =
+            new ConfigOption<>(
+                    "gremlin.batch_query_threads",
+                    "The threads count to fetch batches of ids concurrently.",
+                    rangeInt(1, 256),
+                    16
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_BATCH_QUERY_CONCURRENCY =
+            new ConfigOption<>(
+                    "gremlin.batch_query_concurrency",
+                    "The max batches to be fetched concurrently for per " +
+                    "connection.",
+                    rangeInt(1, 64),
+                    4
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_STREAM_FLUSH_SIZE =
+            new ConfigOption<>(
+                    "gremlin.stream_flush_size",
+                    "The results count to be flushed at once when " +
+                    "executing gremlin in streaming mode.",
+                    rangeInt(1, 10000),
+                    100
+            );
+
+    public static final ConfigOption<Boolean> GREMLIN_RESULT_CACHE_ENABLED =
+            new ConfigOption<>(
+                    "gremlin.result_cache.enabled",
+                    "Whether to cache the results of gremlin query.",
+                    disallowEmpty(),
+                    false
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_RESULT_CACHE_CAPACITY =
+            new ConfigOption<>(
+                    "gremlin.result_cache.capacity",
+                    "The max estimated size in MB of all cached gremlin " +
+                    "results.",
+                    rangeInt(1, 65536),
+                    64
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_RESULT_HANDLE_CAPACITY =
+            new ConfigOption<>(
+                    "gremlin.result_handle.capacity",
+                    "The max estimated size in MB of all gremlin results " +
+                    "kept by handle to build views later, the least " +
+                    "recently used ones are evicted if exceeded.",
+                    rangeInt(1, 65536),
+                    64
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_RESULT_CACHE_TTL =
+            new ConfigOption<>(
+                    "gremlin.result_cache.ttl",
+                    "The time in seconds to keep a cached gremlin result.",
+                    rangeInt(1, Integer.MAX_VALUE),
+                    300
+            );
+
+    public static final ConfigListOption<String> GREMLIN_RESULT_CACHE_CONN_TTL =
+            new ConfigListOption<>(
+                    "gremlin.result_cache.conn_ttl",
+                    false,
+                    "The time in seconds to keep a cached gremlin result " +
+                    "for the specified connections, which overrides " +
+                    "gremlin.result_cache.ttl, like [1:60, 2:600].",
+                    null,
+                    String.class,
+                    new ArrayList<>()
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_JOB_POOL_SIZE =
+            new ConfigOption<>(
+                    "gremlin-job.pool_size",
+                    "The max number of gremlin jobs running at the same time.",
+                    rangeInt(1, 128),
+                    4
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_JOB_QUEUE_CAPACITY =
+            new ConfigOption<>(
+                    "gremlin-job.queue_capacity",
+                    "The max number of gremlin jobs waiting to be executed.",
+                    rangeInt(1, 10000),
+                    64
+            );
+
+    public static final ConfigOption<Integer> GREMLIN_JOB_RETAIN_TIME =
+            new ConfigOption<>(
+                    "gremlin-job.retain_time",
+                    "The time in seconds to retain a finished gremlin job " +
+                    "and its results.",
+                    rangeInt(1, Integer.MAX_VALUE),
+                    600
+            );
+
     public static final ConfigOption<Integer> EXECUTE_HISTORY_SHOW_LIMIT =
             new ConfigOption<>(
                     "execute-history.show_limit",
@@ -105,6 +307,87 @@ public class HubbleOptions extends OptionHolder {
                     500
             );
 
+    public static final ConfigOption<Integer> EXECUTE_HISTORY_FLUSH_INTERVAL =
+            new ConfigOption<>(
+                    "execute-history.flush_interval",
+                    "The interval in milliseconds to write the queued " +
+                    "execute histories into database.",
+                    rangeInt(10, 60000),
+                    200
+            );
+
+    public static final ConfigOption<Integer> EXECUTE_HISTORY_QUEUE_CAPACITY =
+            new ConfigOption<>(
+                    "execute-history.queue_capacity",
+                    "The max count of execute histories waiting to be " +
+                    "written, the request thread writes them itself " +
+                    "when exceeded.",
+                    rangeInt(1, 1000000),
+                    1024
+            );
+
+    public static final ConfigOption<Integer> SCHEMA_SNAPSHOT_CHECK_INTERVAL =
+            new ConfigOption<>(
+                    "schema.snapshot_check_interval",
+                    "The interval in seconds to check whether the schema " +
+                    "snapshot of a connection is out of date.",
+                    rangeInt(1, Integer.MAX_VALUE),
+                    60
+            );
+
+    public static final ConfigOption<Integer> GRAPH_STATUS_REFRESH_INTERVAL =
+            new ConfigOption<>(
+                    "graph-status.refresh_interval",
+                    "The interval in seconds to refresh the status of all " +
+                    "graph connections, a random jitter within 10% is added.",
+                    rangeInt(1, Integer.MAX_VALUE),
+                    180
+            );
+
+    public static final ConfigOption<Integer> GRAPH_STATUS_REFRESH_THREADS =
+            new ConfigOption<>(
+                    "graph-status.refresh_threads",
+                    "The max number of graph connections to refresh status " +
+                    "at the same time.",
+                    rangeInt(1, 64),
+                    4
+            );
+
+    public static final ConfigOption<Integer> GRAPH_STATUS_REFRESH_TIMEOUT =
+            new ConfigOption<>(
+                    "graph-status.refresh_timeout",
+                    "The timeout in seconds to refresh the status of a graph " +
+                    "connection, the status is kept unchanged if timeout.",
+                    rangeInt(1, Integer.MAX_VALUE),
+                    30
+            );
+
+    public static final ConfigOption<Integer> GRAPH_LAYOUT_THREADS =
+            new ConfigOption<>(
+                    "graph-layout.threads",
+                    "The number of threads to compute the forces of " +
+                    "vertices when laying out a large graph view.",
+                    rangeInt(1, 64),
+                    4
+            );
+
+    public static final ConfigOption<Integer> GRAPH_LAYOUT_ITERATIONS =
+            new ConfigOption<>(
+                    "graph-layout.iterations",
+                    "The iterations to lay out a graph view.",
+                    rangeInt(1, 10000),
+                    100
+            );
+
+    public static final ConfigOption<Integer> GRAPH_LAYOUT_INCR_ITERATIONS =
+            new ConfigOption<>(
+                    "graph-layout.incremental_iterations",
+                    "The iterations to lay out the vertices added by " +
+                    "expanding, the vertices laid out before are fixed.",
+                    rangeInt(1, 10000),
+                    50
+            );
+
     public static final ConfigOption<Integer> INDEXLABEL_REBUILD_TIMEOUT =
             new ConfigOption<>(
                     "indexlabel.rebuild.timeout",
@@ -19,12 +19,17 @@
 
 package com.baidu.hugegraph.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import com.baidu.hugegraph.entity.GraphConnection;
@@ -35,12 +40,24 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
 @Service
 public class GraphConnectionService {
 
     @Autowired
     private GraphConnectionMapper mapper;
 
+    /**
+     * The status of all connections, used to check each request without
+     * querying the table. It's dropped after any connection changed and
+     * reloaded at next check, the version prevents a reload which started
+     * before the change from putting back the stale status.
+     */
+    private volatile Map<Integer, Status> statuses = null;
+    private final AtomicLong version = new AtomicLong();
+
     public List<GraphConnection> listAll() {
         return this.mapper.selectList(null);
     }
@@ -68,16 +85,86 @@ public class GraphConnectionService {
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int save(GraphConnection connection) {
-        return this.mapper.insert(connection);
+        int rows = this.mapper.insert(connection);
+        this.statusChanged();
+        return rows;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int update(GraphConnection connection) {
-        return this.mapper.updateById(connection);
+        int rows = this.mapper.updateById(connection);
+        this.statusChanged();
+        return rows;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int remove(int id) {
-        return this.mapper.deleteById(id);
+        int rows = this.mapper.deleteById(id);
+        this.statusChanged();
+        return rows;
+    }
+
+    /**
+     * Get the status of connection from memory, return null if not exist
+     */
+    public Status status(int id) {
+        return this.statuses().get(id);
+    }
+
+    /**
+     * Same as count() but from memory
+     */
+    public int statusCount() {
+        return this.statuses().size();
+    }
+
+    private Map<Integer, Status> statuses() {
+        Map<Integer, Status> statuses = this.statuses;
+        if (statuses != null) {
+            return statuses;
+        }
+        long version = this.version.get();
+        statuses = new HashMap<>();
+        for (GraphConnection connection : this.listAll()) {
+            Status status = new Status(connection.getEnabled(),
+                                       connection.getDisableReason());
+            statuses.put(connection.getId(), status);
+        }
+        synchronized (this.version) {
+            if (this.version.get() == version) {
+                this.statuses = statuses;
+            }
+        }
+        return statuses;
+    }
+
+    private void statusChanged() {
+        Runnable invalidate = () -> {
+            synchronized (this.version) {
+                this.version.incrementAndGet();
+                this.statuses = null;
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate.run();
+            return;
+        }
+        // Invalidate both now and after commit, avoid reloading uncommitted
+        invalidate.run();
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidate.run();
+                    }
+                });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Status {
+
+        private final boolean enabled;
+        private final String disableReason;
     }
 }
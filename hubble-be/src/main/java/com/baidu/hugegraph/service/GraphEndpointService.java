@@ -0,0 +1,290 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.entity.GraphConnection;
+import com.baidu.hugegraph.entity.GraphEndpoint;
+import com.baidu.hugegraph.exception.ExternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.util.HugeClientUtil;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Route the read-only requests of a connection to one of its endpoints,
+ * the endpoint refusing connection is skipped for a while and the request
+ * is retried on the next one
+ */
+@Log4j2
+@Service
+public class GraphEndpointService {
+
+    private static final String ROUND_ROBIN = "round_robin";
+    // The weight of the latest latency in the moving average
+    private static final double LATENCY_ALPHA = 0.3;
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private GraphConnectionService connService;
+    @Autowired
+    private HugeClientPoolService poolService;
+
+    private final Map<Integer, Endpoints> endpoints = new ConcurrentHashMap<>();
+
+    public static List<String> parseEndpoints(String endpoints) {
+        List<String> results = new ArrayList<>();
+        if (StringUtils.isBlank(endpoints)) {
+            return results;
+        }
+        for (String endpoint : StringUtils.split(endpoints, ",")) {
+            if (!StringUtils.isBlank(endpoint)) {
+                results.add(endpoint.trim());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Execute the action with the client of an available endpoint, it's
+     * retried on other endpoints if the chosen one refused connection
+     */
+    public <T> T execute(int connId, Function<HugeClient, T> action) {
+        Endpoints endpoints = this.endpoints(connId);
+        if (endpoints.size() == 1) {
+            // Nothing to choose, go to the connection host directly
+            return this.execute(endpoints.primary(), action);
+        }
+
+        RuntimeException error = null;
+        for (Endpoint endpoint : endpoints.ordered(this.routeStrategy())) {
+            try {
+                return this.execute(endpoint, action);
+            } catch (RuntimeException e) {
+                if (!HugeClientUtil.isConnectionRefused(e)) {
+                    throw e;
+                }
+                log.warn("The endpoint {} of connection {} refused " +
+                         "connection, try the next one", endpoint, connId);
+                error = e;
+            }
+        }
+        assert error != null;
+        throw error;
+    }
+
+    public List<GraphEndpoint> stats(int connId) {
+        return this.endpoints(connId).stats();
+    }
+
+    public void invalidate(int connId) {
+        this.endpoints.remove(connId);
+        // The clients of the removed endpoints needn't be kept in pool
+        this.poolService.removeEndpoints(connId);
+    }
+
+    private <T> T execute(Endpoint endpoint, Function<HugeClient, T> action) {
+        long start = System.nanoTime();
+        try {
+            T result = action.apply(this.client(endpoint));
+            endpoint.succeed(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            if (HugeClientUtil.isConnectionRefused(e)) {
+                endpoint.fail(this.backoff(endpoint));
+            } else {
+                // The endpoint responded, just the request itself failed
+                endpoint.succeed(System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+    private HugeClient client(Endpoint endpoint) {
+        if (endpoint.primary) {
+            // The client of connection host is shared with the pool
+            return this.poolService.getOrCreate(endpoint.connection.getId());
+        }
+        return this.poolService.getOrCreate(endpoint.connection,
+                                            endpoint.host, endpoint.port);
+    }
+
+    private long backoff(Endpoint endpoint) {
+        long initial = this.config.get(HubbleOptions.CLIENT_POOL_BACKOFF_INITIAL);
+        long max = this.config.get(HubbleOptions.CLIENT_POOL_BACKOFF_MAX);
+        int times = Math.min(endpoint.continuousFailures.get(), 30);
+        return TimeUnit.SECONDS.toMillis(Math.min(initial << times, max));
+    }
+
+    private String routeStrategy() {
+        return this.config.get(HubbleOptions.CLIENT_POOL_ROUTE_STRATEGY);
+    }
+
+    private Endpoints endpoints(int connId) {
+        return this.endpoints.computeIfAbsent(connId, id -> {
+            GraphConnection connection = this.connService.get(id);
+            if (connection == null) {
+                throw new ExternalException("graph-connection.not-exist.id",
+                                            id);
+            }
+            Endpoints endpoints = new Endpoints();
+            endpoints.add(new Endpoint(connection, connection.getHost(),
+                                       connection.getPort(), true));
+            for (String endpoint : parseEndpoints(connection.getEndpoints())) {
+                int colon = endpoint.lastIndexOf(':');
+                String host = endpoint.substring(0, colon);
+                int port = Integer.parseInt(endpoint.substring(colon + 1));
+                endpoints.add(new Endpoint(connection, host, port, false));
+            }
+            return endpoints;
+        });
+    }
+
+    private static class Endpoints {
+
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        public void add(Endpoint endpoint) {
+            this.endpoints.add(endpoint);
+        }
+
+        public int size() {
+            return this.endpoints.size();
+        }
+
+        public Endpoint primary() {
+            return this.endpoints.get(0);
+        }
+
+        public List<GraphEndpoint> stats() {
+            return this.endpoints.stream()
+                                 .map(Endpoint::stats)
+                                 .collect(Collectors.toList());
+        }
+
+        /**
+         * The available endpoints come first in order of the strategy, the
+         * unavailable ones are the last resort in order of recovery time
+         */
+        public List<Endpoint> ordered(String strategy) {
+            long now = System.currentTimeMillis();
+            List<Endpoint> availables = new ArrayList<>(this.size());
+            List<Endpoint> unavailables = new ArrayList<>();
+            int offset = Math.floorMod(this.next.getAndIncrement(),
+                                       this.size());
+            for (int i = 0; i < this.size(); i++) {
+                Endpoint endpoint = this.endpoints.get((offset + i) %
+                                                       this.size());
+                if (endpoint.available(now)) {
+                    availables.add(endpoint);
+                } else {
+                    unavailables.add(endpoint);
+                }
+            }
+            if (!ROUND_ROBIN.equals(strategy)) {
+                // Stable sort keeps the rotation among the same latencies
+                availables.sort(Comparator.comparingDouble(e -> e.latency));
+            }
+            unavailables.sort(Comparator.comparingLong(e -> e.retryTime));
+            availables.addAll(unavailables);
+            return availables;
+        }
+    }
+
+    private static class Endpoint {
+
+        private final GraphConnection connection;
+        private final String host;
+        private final int port;
+        private final boolean primary;
+
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicInteger continuousFailures = new AtomicInteger();
+        private volatile double latency = 0.0;
+        private volatile long retryTime = 0L;
+
+        public Endpoint(GraphConnection connection, String host, int port,
+                        boolean primary) {
+            this.connection = connection;
+            this.host = host;
+            this.port = port;
+            this.primary = primary;
+        }
+
+        public boolean available(long now) {
+            return this.retryTime <= now;
+        }
+
+        public void succeed(long nanos) {
+            double millis = nanos / 1000000.0;
+            this.requests.incrementAndGet();
+            this.continuousFailures.set(0);
+            this.retryTime = 0L;
+            synchronized (this) {
+                this.latency = this.latency == 0.0 ? millis :
+                               LATENCY_ALPHA * millis +
+                               (1 - LATENCY_ALPHA) * this.latency;
+            }
+        }
+
+        public void fail(long backoff) {
+            this.requests.incrementAndGet();
+            this.failures.incrementAndGet();
+            this.continuousFailures.incrementAndGet();
+            this.retryTime = System.currentTimeMillis() + backoff;
+        }
+
+        public GraphEndpoint stats() {
+            return GraphEndpoint.builder()
+                                .host(this.host)
+                                .port(this.port)
+                                .available(this.available(
+                                           System.currentTimeMillis()))
+                                .requests(this.requests.get())
+                                .failures(this.failures.get())
+                                .latency(this.latency)
+                                .build();
+        }
+
+        @Override
+        public String toString() {
+            return this.host + ":" + this.port;
+        }
+    }
+}
@@ -19,18 +19,44 @@
 
 package com.baidu.hugegraph.service;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.baidu.hugegraph.config.HugeConfig;
 import com.baidu.hugegraph.driver.HugeClient;
 import com.baidu.hugegraph.entity.GraphConnection;
 import com.baidu.hugegraph.exception.ExternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
 import com.baidu.hugegraph.util.HugeClientUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
@@ -38,22 +64,334 @@ import lombok.extern.log4j.Log4j2;
 public final class HugeClientPoolService
              extends ConcurrentHashMap<Integer, HugeClient> {
 
+    private static final long CHECK_INTERVAL = 60 * 1000L;
+
+    @Autowired
+    private HugeConfig config;
     @Autowired
     private GraphConnectionService connService;
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * The connecting futures, the threads requesting a connection which is
+     * connecting will wait for the same future rather than connect again
+     */
+    private final Map<Integer, CompletableFuture<HugeClient>> connectings =
+                  new ConcurrentHashMap<>();
+    /**
+     * The last failures of connecting, the connection won't be retried
+     * until the backoff time passed, the last error is thrown instead
+     */
+    private final Map<Integer, Failure> failures = new ConcurrentHashMap<>();
+    /**
+     * The last time of each client is taken from pool
+     */
+    private final Map<Integer, Long> accessTimes = new ConcurrentHashMap<>();
+    /**
+     * The connections of clients in pool, the health check probes the graph
+     * of connection without reading it from database
+     */
+    private final Map<Integer, GraphConnection> connections =
+                  new ConcurrentHashMap<>();
+    /**
+     * The evicted clients may still be used by the requests in flight, they
+     * are closed after a check interval rather than at once
+     */
+    private final Queue<Closing> closings = new ConcurrentLinkedQueue<>();
+    /**
+     * The clients of the secondary endpoints of connections, they are
+     * evicted and probed like the clients of connection hosts
+     */
+    private final Map<String, EndpointClient> endpointClients =
+                  new ConcurrentHashMap<>();
+
+    private ExecutorService checker;
+    private ExecutorService prober;
+    private Timer connectTimer;
+    private Counter connectFailures;
+    private Counter idleEvictions;
+    private Counter unhealthyEvictions;
+
+    @PostConstruct
+    public void init() {
+        // Skip the check if the last one is still running
+        this.checker = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("client-checker-%d")
+                                          .setDaemon(true).build(),
+                new ThreadPoolExecutor.DiscardPolicy());
+        int threads = this.config.get(HubbleOptions.CLIENT_POOL_CHECK_THREADS);
+        this.prober = Executors.newFixedThreadPool(
+                      threads,
+                      new ThreadFactoryBuilder()
+                              .setNameFormat("client-prober-%d")
+                              .setDaemon(true).build());
+        this.registry.gaugeMapSize("hubble.client_pool.clients",
+                                   Tags.empty(), this);
+        this.connectTimer = this.registry.timer("hubble.client_pool.connect");
+        this.connectFailures = this.registry.counter(
+                               "hubble.client_pool.connect_failures");
+        this.idleEvictions = this.registry.counter(
+                             "hubble.client_pool.evictions", "reason", "idle");
+        this.unhealthyEvictions = this.registry.counter(
+                                  "hubble.client_pool.evictions",
+                                  "reason", "unhealthy");
+    }
 
     @PreDestroy
     public void destroy() {
         log.info("Destroy HugeClient pool");
+        this.checker.shutdownNow();
+        this.prober.shutdownNow();
         for (HugeClient client : this.values()) {
             client.close();
         }
+        for (EndpointClient endpoint : this.endpointClients.values()) {
+            HugeClient client = endpoint.reset();
+            if (client != null) {
+                client.close();
+            }
+        }
+        for (Closing closing : this.closings) {
+            closing.client.close();
+        }
+        this.closings.clear();
     }
 
     public void put(GraphConnection connection, HugeClient client) {
-        super.put(connection.getId(), client);
+        this.connections.put(connection.getId(), connection);
+        HugeClient oldClient = super.put(connection.getId(), client);
+        if (oldClient != null && oldClient != client) {
+            this.closeLater(oldClient);
+        }
+        this.failures.remove(connection.getId());
+        this.accessTimes.put(connection.getId(), System.currentTimeMillis());
+    }
+
+    public HugeClient getOrCreate(Integer id) {
+        this.accessTimes.put(id, System.currentTimeMillis());
+        HugeClient client = super.get(id);
+        if (client != null) {
+            return client;
+        }
+
+        Failure failure = this.failures.get(id);
+        if (failure != null && failure.retryTime > System.currentTimeMillis()) {
+            log.debug("Skip connecting to connection {} until {}",
+                      id, failure.retryTime);
+            throw failure.error;
+        }
+
+        CompletableFuture<HugeClient> future = new CompletableFuture<>();
+        CompletableFuture<HugeClient> existed;
+        existed = this.connectings.putIfAbsent(id, future);
+        if (existed != null) {
+            return waitFor(existed);
+        }
+
+        try {
+            client = this.connect(id);
+            future.complete(client);
+            return client;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.connectings.remove(id, future);
+        }
+    }
+
+    /**
+     * Get the client of a secondary endpoint of the connection, it's
+     * connected at the first time
+     */
+    public HugeClient getOrCreate(GraphConnection connection, String host,
+                                  int port) {
+        String key = endpointKey(connection.getId(), host, port);
+        EndpointClient endpoint = this.endpointClients.computeIfAbsent(key,
+                                  k -> new EndpointClient(connection,
+                                                          host, port));
+        return endpoint.client();
+    }
+
+    public void remove(GraphConnection connection) {
+        this.evict(connection.getId());
+        this.removeEndpoints(connection.getId());
+        this.connections.remove(connection.getId());
+        this.failures.remove(connection.getId());
+    }
+
+    /**
+     * Remove the clients of secondary endpoints of the connection, it's
+     * called after the endpoints of connection changed
+     */
+    public void removeEndpoints(int connId) {
+        String prefix = connId + "@";
+        Iterator<Map.Entry<String, EndpointClient>> iter;
+        iter = this.endpointClients.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, EndpointClient> entry = iter.next();
+            if (entry.getKey().startsWith(prefix)) {
+                iter.remove();
+                this.evict(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Close the clients which haven't been used for a while, and probe the
+     * others, the unhealthy clients will be closed and reconnected. The
+     * check runs on its own threads, so that the probes blocked by a dead
+     * graph won't delay the other scheduled tasks.
+     */
+    @Scheduled(fixedDelay = CHECK_INTERVAL)
+    public void checkClients() {
+        this.checker.execute(this::check);
+    }
+
+    private void check() {
+        this.closeEvicted();
+
+        long idleTimeout = TimeUnit.SECONDS.toMillis(this.config.get(
+                           HubbleOptions.CLIENT_POOL_IDLE_TIMEOUT));
+        long now = System.currentTimeMillis();
+        Map<Object, Future<Boolean>> probes = new LinkedHashMap<>();
+        Set<Object> started = ConcurrentHashMap.newKeySet();
+        for (Integer id : this.keySet()) {
+            long accessTime = this.accessTimes.getOrDefault(id, now);
+            if (now - accessTime > idleTimeout) {
+                log.debug("Close the client of connection {} idled for {}ms",
+                          id, now - accessTime);
+                this.evict(id);
+                this.idleEvictions.increment();
+                continue;
+            }
+            probes.put(id, this.prober.submit(() -> {
+                started.add(id);
+                return probe(id, super.get(id), this.connections.get(id));
+            }));
+        }
+        for (Map.Entry<String, EndpointClient> entry :
+             this.endpointClients.entrySet()) {
+            String key = entry.getKey();
+            EndpointClient endpoint = entry.getValue();
+            if (endpoint.client == null) {
+                continue;
+            }
+            if (now - endpoint.accessTime > idleTimeout) {
+                log.debug("Close the client of endpoint {} idled for {}ms",
+                          key, now - endpoint.accessTime);
+                this.evict(endpoint);
+                this.idleEvictions.increment();
+                continue;
+            }
+            probes.put(key, this.prober.submit(() -> {
+                started.add(key);
+                return probe(key, endpoint.client, endpoint.connection);
+            }));
+        }
+
+        long timeout = TimeUnit.SECONDS.toMillis(this.config.get(
+                       HubbleOptions.CLIENT_POOL_PROBE_TIMEOUT));
+        for (Map.Entry<Object, Future<Boolean>> entry : probes.entrySet()) {
+            Object key = entry.getKey();
+            if (this.healthy(key, entry.getValue(), timeout, started)) {
+                continue;
+            }
+            this.unhealthyEvictions.increment();
+            if (!(key instanceof Integer)) {
+                // The endpoint client will be reconnected when it's used
+                this.evict(this.endpointClients.get(key));
+                continue;
+            }
+            Integer id = (Integer) key;
+            this.evict(id);
+            this.prober.execute(() -> {
+                try {
+                    this.getOrCreate(id);
+                    log.info("Reconnected to the graph of connection {}", id);
+                } catch (Exception e) {
+                    log.debug("Failed to reconnect to the graph of " +
+                              "connection {}", id, e);
+                }
+            });
+        }
+    }
+
+    private boolean healthy(Object id, Future<Boolean> probe, long timeout,
+                            Set<Object> started) {
+        try {
+            return probe.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            probe.cancel(true);
+            if (!started.contains(id)) {
+                // Queued behind the slow probes, check it next time
+                return true;
+            }
+            log.warn("The client of {} is unhealthy: probe " +
+                     "timeout after {}ms", id, timeout);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private static boolean probe(Object id, HugeClient client,
+                                 GraphConnection connection) {
+        if (client == null || connection == null) {
+            return true;
+        }
+        try {
+            client.graphs().getGraph(connection.getGraph());
+            return true;
+        } catch (Exception e) {
+            log.warn("The client of {} is unhealthy: {}",
+                     id, e.getMessage());
+            return false;
+        }
+    }
+
+    private void evict(Integer id) {
+        HugeClient client = super.remove(id);
+        this.accessTimes.remove(id);
+        if (client != null) {
+            this.closeLater(client);
+        }
+    }
+
+    private void evict(EndpointClient endpoint) {
+        if (endpoint == null) {
+            return;
+        }
+        HugeClient client = endpoint.reset();
+        if (client != null) {
+            this.closeLater(client);
+        }
+    }
+
+    private void closeLater(HugeClient client) {
+        this.closings.add(new Closing(client, System.currentTimeMillis()));
+    }
+
+    private void closeEvicted() {
+        long now = System.currentTimeMillis();
+        Iterator<Closing> iter = this.closings.iterator();
+        while (iter.hasNext()) {
+            Closing closing = iter.next();
+            if (now - closing.evictTime < CHECK_INTERVAL) {
+                break;
+            }
+            closing.client.close();
+            iter.remove();
+        }
     }
 
-    public synchronized HugeClient getOrCreate(Integer id) {
+    private HugeClient connect(Integer id) {
+        // Check again in case of connected just now
         HugeClient client = super.get(id);
         if (client != null) {
             return client;
@@ -62,12 +400,101 @@ public final class HugeClientPoolService
         if (connection == null) {
             throw new ExternalException("graph-connection.get.failed", id);
         }
-        client = HugeClientUtil.tryConnect(connection);
-        this.put(id, client);
+
+        long start = System.nanoTime();
+        try {
+            client = HugeClientUtil.tryConnect(connection);
+        } catch (RuntimeException e) {
+            this.connectFailures.increment();
+            this.failures.compute(id, (k, v) -> {
+                int times = v == null ? 1 : v.times + 1;
+                return new Failure(e, times, this.retryTime(times));
+            });
+            throw e;
+        } finally {
+            this.connectTimer.record(System.nanoTime() - start,
+                                     TimeUnit.NANOSECONDS);
+        }
+        this.failures.remove(id);
+
+        HugeClient existed = super.putIfAbsent(id, client);
+        if (existed != null) {
+            // Put by others during connecting
+            client.close();
+            return existed;
+        }
+        this.connections.put(id, connection);
         return client;
     }
 
-    public void remove(GraphConnection connection) {
-        super.remove(connection.getId());
+    private long retryTime(int times) {
+        long initial = this.config.get(HubbleOptions.CLIENT_POOL_BACKOFF_INITIAL);
+        long max = this.config.get(HubbleOptions.CLIENT_POOL_BACKOFF_MAX);
+        // Double the backoff for each failure in a row
+        long backoff = initial << Math.min(times - 1, 30);
+        backoff = Math.min(backoff, max);
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(backoff);
+    }
+
+    private static String endpointKey(int connId, String host, int port) {
+        return connId + "@" + host + ":" + port;
+    }
+
+    private static HugeClient waitFor(CompletableFuture<HugeClient> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Failure {
+
+        private final RuntimeException error;
+        private final int times;
+        private final long retryTime;
+    }
+
+    private static class EndpointClient {
+
+        private final GraphConnection connection;
+        private final String host;
+        private final int port;
+        private volatile HugeClient client;
+        private volatile long accessTime;
+
+        public EndpointClient(GraphConnection connection, String host,
+                              int port) {
+            this.connection = connection;
+            this.host = host;
+            this.port = port;
+        }
+
+        public synchronized HugeClient client() {
+            this.accessTime = System.currentTimeMillis();
+            if (this.client == null) {
+                this.client = HugeClientUtil.tryConnect(this.connection,
+                                                        this.host, this.port);
+            }
+            return this.client;
+        }
+
+        public synchronized HugeClient reset() {
+            HugeClient client = this.client;
+            this.client = null;
+            return client;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Closing {
+
+        private final HugeClient client;
+        private final long evictTime;
     }
 }
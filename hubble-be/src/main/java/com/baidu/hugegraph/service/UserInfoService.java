@@ -20,6 +20,8 @@
 package com.baidu.hugegraph.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import com.baidu.hugegraph.entity.UserInfo;
@@ -33,16 +35,29 @@ public class UserInfoService {
     @Autowired
     private UserInfoMapper mapper;
 
+    /**
+     * The user info is read for the locale of each message, so it's cached,
+     * including the absent one
+     */
+    @Cacheable(value = "USER_INFO", key = "#name")
     public UserInfo getByName(String name) {
         QueryWrapper<UserInfo> query = Wrappers.query();
         query.eq("username", name);
         return this.mapper.selectOne(query);
     }
 
+    /**
+     * Evict before invocation, since the caller may have modified the
+     * cached instance and the modification must not be served if failed
+     */
+    @CacheEvict(value = "USER_INFO", key = "#userInfo.username",
+                beforeInvocation = true)
     public int save(UserInfo userInfo) {
         return this.mapper.insert(userInfo);
     }
 
+    @CacheEvict(value = "USER_INFO", key = "#userInfo.username",
+                beforeInvocation = true)
     public int update(UserInfo userInfo) {
         return this.mapper.updateById(userInfo);
     }
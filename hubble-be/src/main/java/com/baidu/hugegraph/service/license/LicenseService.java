@@ -22,27 +22,50 @@ package com.baidu.hugegraph.service.license;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.baidu.hugegraph.advisor.MessageSourceHandler;
+import com.baidu.hugegraph.api.metrics.MetricsAPI;
+import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.common.Constant;
+import com.baidu.hugegraph.config.HugeConfig;
 import com.baidu.hugegraph.driver.HugeClient;
 import com.baidu.hugegraph.entity.GraphConnection;
 import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.license.LicenseVerifier;
+import com.baidu.hugegraph.options.HubbleOptions;
 import com.baidu.hugegraph.service.GraphConnectionService;
 import com.baidu.hugegraph.service.HugeClientPoolService;
 import com.baidu.hugegraph.util.Ex;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.log4j.Log4j2;
 
+@Log4j2
 @Service
 public class LicenseService {
 
@@ -54,6 +77,72 @@ public class LicenseService {
     private HugeClientPoolService poolService;
     @Autowired
     private MessageSourceHandler messageHandler;
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private MeterRegistry registry;
+
+    // Schedule the refreshes and cancel the timeout ones
+    private ScheduledExecutorService scheduler;
+    // Refresh the connections concurrently
+    private ExecutorService refreshers;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    // The refreshes submitted and not finished, including the timeout ones
+    private final AtomicInteger busyRefreshes = new AtomicInteger(0);
+    private Timer refreshTimer;
+    private Counter timeoutRefreshes;
+    private Counter failedRefreshes;
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newScheduledThreadPool(2,
+                         new ThreadFactoryBuilder()
+                                 .setNameFormat("graph-status-scheduler-%d")
+                                 .setDaemon(true).build());
+        int threads = this.config.get(
+                      HubbleOptions.GRAPH_STATUS_REFRESH_THREADS);
+        this.refreshers = Executors.newFixedThreadPool(threads,
+                          new ThreadFactoryBuilder()
+                                  .setNameFormat("graph-status-refresher-%d")
+                                  .setDaemon(true).build());
+        this.refreshTimer = Timer.builder("hubble.graph_status.refresh")
+                                 .register(this.registry);
+        this.timeoutRefreshes = Counter.builder("hubble.graph_status.errors")
+                                       .tag("reason", "timeout")
+                                       .register(this.registry);
+        this.failedRefreshes = Counter.builder("hubble.graph_status.errors")
+                                      .tag("reason", "failed")
+                                      .register(this.registry);
+        this.scheduleRefresh(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.scheduler.shutdownNow();
+        this.refreshers.shutdownNow();
+    }
+
+    /**
+     * The status refresh of a connection, it won't write the status once
+     * it's cancelled by timeout
+     */
+    private static class Refresh {
+
+        private final GraphConnection conn;
+        private final CompletableFuture<Void> result;
+        private boolean cancelled;
+
+        public Refresh(GraphConnection conn) {
+            this.conn = conn;
+            this.result = new CompletableFuture<>();
+            this.cancelled = false;
+        }
+
+        public synchronized void cancel() {
+            this.cancelled = true;
+            this.result.completeExceptionally(new TimeoutException());
+        }
+    }
 
     @Data
     @AllArgsConstructor
@@ -136,72 +225,210 @@ public class LicenseService {
         }
     }
 
+    /**
+     * Check the connection is usable for each request, the status is read
+     * from memory without querying the table
+     */
     public void checkGraphStatus(int connId) {
-        GraphConnection connection = this.connService.get(connId);
-        Ex.check(connection != null, "graph-connection.not-exist.id", connId);
+        GraphConnectionService.Status status = this.connService.status(connId);
+        Ex.check(status != null, "graph-connection.not-exist.id", connId);
+
+        int actualGraphs = this.connService.statusCount();
+        int allowedGraphs = LicenseVerifier.instance().allowedGraphs();
+        if (status.isEnabled() && (allowedGraphs == Constant.NO_LIMIT ||
+                                   actualGraphs <= allowedGraphs)) {
+            return;
+        }
 
-        int actualGraphs = this.connService.count();
         VerifyResult verifyResult = this.verifyGraphs(actualGraphs);
         String msg = null;
-        if (!verifyResult.isEnabled() && !connection.getEnabled()) {
+        if (!verifyResult.isEnabled() && !status.isEnabled()) {
             msg = String.format("%s, %s", verifyResult.getMessage(),
-                                connection.getDisableReason());
-        } else if (!verifyResult.isEnabled() && connection.getEnabled()) {
+                                status.getDisableReason());
+        } else if (!verifyResult.isEnabled() && status.isEnabled()) {
             msg = verifyResult.getMessage();
-        } else if (verifyResult.isEnabled() && !connection.getEnabled()) {
-            msg = connection.getDisableReason();
+        } else if (verifyResult.isEnabled() && !status.isEnabled()) {
+            msg = status.getDisableReason();
         }
         if (msg != null) {
             throw new ExternalException(Constant.STATUS_UNAUTHORIZED, msg);
         }
     }
 
-    @Async
-    @Scheduled(fixedRate = 3 * 60 * 1000)
+    /**
+     * Refresh the status of all graph connections in background, it's
+     * skipped if the last refresh is still running
+     */
     public void updateAllGraphStatus() {
+        this.scheduler.execute(this::refreshAll);
+    }
+
+    private void scheduleRefresh(boolean first) {
+        long interval = TimeUnit.SECONDS.toMillis(this.config.get(
+                        HubbleOptions.GRAPH_STATUS_REFRESH_INTERVAL));
+        // Add jitter to avoid refreshing together with other instances
+        long jitter = interval / 10;
+        long delay;
+        if (first) {
+            delay = ThreadLocalRandom.current().nextLong(jitter + 1);
+        } else {
+            delay = interval +
+                    ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        this.scheduler.schedule(() -> {
+            try {
+                this.refreshAll();
+            } finally {
+                this.scheduleRefresh(false);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshAll() {
+        if (this.busyRefreshes.get() > 0) {
+            log.debug("Skip refreshing graph status since the refreshes " +
+                      "of last time are still running");
+            return;
+        }
+        if (!this.refreshing.compareAndSet(false, true)) {
+            log.debug("Skip refreshing graph status since it's running");
+            return;
+        }
+        try {
+            this.refreshTimer.record(this::refreshAllConcurrently);
+        } catch (Throwable e) {
+            log.warn("Failed to refresh graph status", e);
+        } finally {
+            this.refreshing.set(false);
+        }
+    }
+
+    private void refreshAllConcurrently() {
+        int timeout = this.config.get(
+                      HubbleOptions.GRAPH_STATUS_REFRESH_TIMEOUT);
         List<GraphConnection> connections = this.connService.listAll();
+        List<Refresh> refreshes = new ArrayList<>(connections.size());
         for (GraphConnection conn : connections) {
-            this.updateGraphStatus(conn);
+            Refresh refresh = new Refresh(conn);
+            this.busyRefreshes.incrementAndGet();
+            this.refreshers.execute(() -> {
+                // The timeout starts when the refresh starts, not queued
+                ScheduledFuture<?> canceller = this.scheduler.schedule(
+                                               refresh::cancel,
+                                               timeout, TimeUnit.SECONDS);
+                try {
+                    this.updateGraphStatus(refresh, timeout);
+                    refresh.result.complete(null);
+                } catch (Throwable e) {
+                    refresh.result.completeExceptionally(e);
+                } finally {
+                    canceller.cancel(false);
+                    this.busyRefreshes.decrementAndGet();
+                }
+            });
+            refreshes.add(refresh);
+        }
+
+        for (Refresh refresh : refreshes) {
+            int connId = refresh.conn.getId();
+            try {
+                refresh.result.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    this.timeoutRefreshes.increment();
+                    log.warn("Timeout to refresh the status of graph " +
+                             "connection {} in {}s", connId, timeout);
+                } else {
+                    this.failedRefreshes.increment();
+                    log.warn("Failed to refresh the status of graph " +
+                             "connection {}", connId, e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 
-    private void updateGraphStatus(GraphConnection conn) {
-        HugeClient client;
+    private void updateGraphStatus(Refresh refresh, int timeout) {
+        GraphConnection conn = refresh.conn;
         try {
-            client = this.poolService.getOrCreate(conn.getId());
+            this.poolService.getOrCreate(conn.getId());
         } catch (Exception e) {
             String msg = this.getMessage("graph-connection.client.unavailable",
                                          conn.getName());
-            conn.setEnabled(false);
-            conn.setDisableReason(msg);
-            this.connService.update(conn);
+            this.updateGraphStatus(refresh, false, msg);
             return;
         }
 
         long allowedDataSize = LicenseVerifier.instance().allowedDataSize();
-        long actualDataSize = getActualDataSize(client, conn.getGraph());
+        long actualDataSize = getActualDataSize(conn, timeout);
         if (allowedDataSize != Constant.NO_LIMIT &&
             actualDataSize > allowedDataSize) {
             String msg = this.getMessage("license.verify.datasize.exceed",
                                          conn.getName(), actualDataSize,
                                          allowedDataSize);
-            conn.setEnabled(false);
-            conn.setDisableReason(msg);
-            this.connService.update(conn);
+            this.updateGraphStatus(refresh, false, msg);
             return;
         }
 
-        conn.setEnabled(true);
-        conn.setDisableReason("");
-        this.connService.update(conn);
+        this.updateGraphStatus(refresh, true, "");
+    }
+
+    private void updateGraphStatus(Refresh refresh, boolean enabled,
+                                   String disableReason) {
+        GraphConnection conn = refresh.conn;
+        synchronized (refresh) {
+            if (refresh.cancelled) {
+                // Counted as timeout, keep the status unchanged
+                log.debug("Skip updating the status of graph connection {} " +
+                          "after timeout", conn.getId());
+                return;
+            }
+            if (Boolean.valueOf(enabled).equals(conn.getEnabled()) &&
+                disableReason.equals(conn.getDisableReason())) {
+                // Not changed, keep the cached status
+                return;
+            }
+            conn.setEnabled(enabled);
+            conn.setDisableReason(disableReason);
+            this.connService.update(conn);
+        }
     }
 
     private String getMessage(String msgKey, Object... args) {
         return this.messageHandler.getMessage(msgKey, args);
     }
 
+    /**
+     * Request the metrics with a client of its own, so that the refresh
+     * thread won't be blocked longer than the timeout by a dead graph
+     */
+    private static long getActualDataSize(GraphConnection conn, int timeout) {
+        String url = UriComponentsBuilder.newInstance()
+                                         .scheme("http")
+                                         .host(conn.getHost())
+                                         .port(conn.getPort())
+                                         .toUriString();
+        RestClient client;
+        if (conn.getUsername() != null) {
+            client = new RestClient(url, conn.getUsername(),
+                                    conn.getPassword(), timeout);
+        } else {
+            client = new RestClient(url, timeout);
+        }
+        try {
+            return dataSize(new MetricsAPI(client).backend(conn.getGraph()));
+        } finally {
+            client.close();
+        }
+    }
+
     private static long getActualDataSize(HugeClient client, String graph) {
-        Map<String, Object> metrics = client.metrics().backend(graph);
+        return dataSize(client.metrics().backend(graph));
+    }
+
+    private static long dataSize(Map<String, Object> metrics) {
         Object dataSize = metrics.get(METRICS_DATA_SIZE);
         if (dataSize == null) {
             return 0L;
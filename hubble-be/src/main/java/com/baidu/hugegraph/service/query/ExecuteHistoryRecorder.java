@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.entity.query.ExecuteHistory;
+import com.baidu.hugegraph.mapper.query.ExecuteHistoryMapper;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Write the execute histories behind the queries, the histories are queued
+ * and written in batch by a background thread every flush interval. The
+ * update of a history not written yet is merged into its insert.
+ *
+ * NOTE: the ids are allocated here rather than by database, so that the
+ * caller can refer to the history before it's written
+ */
+@Log4j2
+@Service
+public class ExecuteHistoryRecorder {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO `execute_history` (`id`, `conn_id`, `execute_type`, " +
+            "`content`, `execute_status`, `duration`, `create_time`) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE `execute_history` SET `execute_status` = ?, " +
+            "`duration` = ? WHERE `id` = ?";
+    private static final String MAX_ID_SQL =
+            "SELECT COALESCE(MAX(`id`), 0) FROM `execute_history`";
+    // The records failed to write so many times are dropped
+    private static final int MAX_WRITE_TIMES = 3;
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ExecuteHistoryMapper mapper;
+
+    private final Queue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    // The records queued and still able to merge updates, keyed by id
+    private final Map<Integer, Record> pendings = new ConcurrentHashMap<>();
+    // The records failed to write, they are written before the queued ones
+    private final List<Record> failures = new ArrayList<>();
+    private final Lock flushLock = new ReentrantLock();
+    private AtomicInteger idGenerator;
+    private TransactionTemplate transaction;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        Integer maxId = this.jdbcTemplate.queryForObject(MAX_ID_SQL,
+                                                         Integer.class);
+        this.idGenerator = new AtomicInteger(maxId == null ? 0 : maxId);
+        this.transaction = new TransactionTemplate(this.transactionManager);
+        this.transaction.setIsolationLevel(
+                         TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        int interval = this.config.get(
+                       HubbleOptions.EXECUTE_HISTORY_FLUSH_INTERVAL);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                       new ThreadFactoryBuilder()
+                               .setNameFormat("history-flusher")
+                               .setDaemon(true).build());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval,
+                                            interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.flusher.shutdown();
+        try {
+            this.flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Drain the remaining histories before database closed
+        this.flush();
+        log.info("Flushed execute histories on shutdown");
+    }
+
+    /**
+     * Queue the history to insert, the id is set into it immediately
+     */
+    public void insert(ExecuteHistory history) {
+        history.setId(this.idGenerator.incrementAndGet());
+        Record record = new Record(copy(history), true);
+        this.pendings.put(history.getId(), record);
+        this.enqueue(record);
+    }
+
+    /**
+     * Queue the status and duration of the history to update
+     */
+    public void update(ExecuteHistory history) {
+        Record created = new Record(copy(history), false);
+        Record record = this.pendings.compute(history.getId(), (key, old) -> {
+            if (old == null) {
+                return created;
+            }
+            // Not written yet, just write the latest state
+            old.history.setStatus(history.getStatus());
+            old.history.setDuration(history.getDuration());
+            return old;
+        });
+        // Enqueue out of compute() since it may flush and remove pendings
+        if (record == created) {
+            this.enqueue(created);
+        }
+    }
+
+    /**
+     * The latest state of the history if it hasn't been written yet
+     */
+    public ExecuteHistory pending(int id) {
+        Record record = this.pendings.get(id);
+        return record == null || !record.insert ? null :
+               copy(record.history);
+    }
+
+    /**
+     * Write all queued histories in one transaction, the histories failed
+     * to write are kept in order and written again by the next flush
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            List<Record> records = new ArrayList<>(this.failures);
+            this.failures.clear();
+            Record record;
+            while ((record = this.queue.poll()) != null) {
+                this.queueSize.decrementAndGet();
+                records.add(record);
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+
+            List<ExecuteHistory> inserts = new ArrayList<>();
+            List<ExecuteHistory> updates = new ArrayList<>();
+            for (Record written : records) {
+                // The updates after here will be queued as a new record
+                this.pendings.remove(written.history.getId(), written);
+                if (written.insert) {
+                    inserts.add(written.history);
+                } else {
+                    updates.add(written.history);
+                }
+            }
+            try {
+                this.transaction.execute(status -> {
+                    this.batchInsert(inserts);
+                    this.batchUpdate(updates);
+                    this.removeExceedLimit(inserts);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                this.writeLater(records);
+                throw e;
+            }
+            log.debug("Flushed {} inserts and {} updates of execute history",
+                      inserts.size(), updates.size());
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private void writeLater(List<Record> records) {
+        for (Record record : records) {
+            if (++record.writeTimes >= MAX_WRITE_TIMES) {
+                log.error("Dropped the {} of execute history {} after " +
+                          "failed to write {} times",
+                          record.insert ? "insert" : "update",
+                          record.history.getId(), record.writeTimes);
+                continue;
+            }
+            if (record.insert) {
+                // The updates can be merged into it again
+                this.pendings.putIfAbsent(record.history.getId(), record);
+            }
+            this.failures.add(record);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            this.flush();
+        } catch (Throwable e) {
+            log.error("Failed to flush execute histories", e);
+        }
+    }
+
+    private void enqueue(Record record) {
+        int capacity = this.config.get(
+                       HubbleOptions.EXECUTE_HISTORY_QUEUE_CAPACITY);
+        this.queue.offer(record);
+        if (this.queueSize.incrementAndGet() > capacity) {
+            /*
+             * Write in caller thread when the flusher can't keep up, the
+             * record has been queued so it's kept to retry if write failed
+             */
+            this.flushQuietly();
+        }
+    }
+
+    private void batchInsert(List<ExecuteHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(histories.size());
+        for (ExecuteHistory history : histories) {
+            args.add(new Object[]{
+                    history.getId(), history.getConnId(),
+                    history.getType().getValue(), history.getContent(),
+                    history.getStatus().getValue(), history.getDuration(),
+                    new Timestamp(history.getCreateTime().getTime())
+            });
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    private void batchUpdate(List<ExecuteHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(histories.size());
+        for (ExecuteHistory history : histories) {
+            args.add(new Object[]{
+                    history.getStatus().getValue(), history.getDuration(),
+                    history.getId()
+            });
+        }
+        int[] rows = this.jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == 0) {
+                // The history may have been deleted
+                log.debug("No execute history updated with id {}",
+                          histories.get(i).getId());
+            }
+        }
+    }
+
+    /**
+     * Keep the newest show_limit histories for each connection written to,
+     * at most the inserted count of histories are removed for each one
+     */
+    private void removeExceedLimit(List<ExecuteHistory> inserts) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        int limit = this.config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (ExecuteHistory history : inserts) {
+            counts.merge(history.getConnId(), 1, Integer::sum);
+        }
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            this.mapper.deleteExceedLimit(entry.getKey(), limit,
+                                          entry.getValue());
+        }
+    }
+
+    private static ExecuteHistory copy(ExecuteHistory history) {
+        return new ExecuteHistory(history.getId(), history.getConnId(),
+                                  history.getType(), history.getContent(),
+                                  history.getStatus(), history.getDuration(),
+                                  history.getCreateTime());
+    }
+
+    private static class Record {
+
+        private final ExecuteHistory history;
+        private final boolean insert;
+        private int writeTimes = 0;
+
+        public Record(ExecuteHistory history, boolean insert) {
+            this.history = history;
+            this.insert = insert;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.baidu.hugegraph.service.query;
 
+import java.util.Date;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -28,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.baidu.hugegraph.config.HugeConfig;
 import com.baidu.hugegraph.entity.query.ExecuteHistory;
+import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.mapper.query.ExecuteHistoryMapper;
 import com.baidu.hugegraph.options.HubbleOptions;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -45,45 +48,99 @@ public class ExecuteHistoryService {
     private HugeConfig config;
     @Autowired
     private ExecuteHistoryMapper mapper;
+    @Autowired
+    private ExecuteHistoryRecorder recorder;
 
     public IPage<ExecuteHistory> list(int connId, long current, long pageSize) {
+        // Make the queued histories visible
+        this.recorder.flush();
         QueryWrapper<ExecuteHistory> query = Wrappers.query();
-        query.eq("conn_id", connId).orderByDesc("create_time");
-        Page<ExecuteHistory> page = new Page<>(current, pageSize);
+        query.eq("conn_id", connId).orderByDesc("create_time", "id");
+        // The histories are bounded by limit, no need to count all
+        Page<ExecuteHistory> page = new Page<>(current, pageSize, false);
         IPage<ExecuteHistory> results = this.mapper.selectPage(page, query);
+        results.setTotal(this.total(connId));
+        return results;
+    }
 
-        int limit = this.config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT);
-        if (results.getTotal() > limit) {
-            log.debug("Execute history total records: {}", results.getTotal());
-            results.setTotal(limit);
+    /**
+     * List the histories older than the last one of previous page, it seeks
+     * by index rather than skipping the rows of previous pages
+     */
+    public IPage<ExecuteHistory> listAfter(int connId, int lastId,
+                                           long current, long pageSize) {
+        this.recorder.flush();
+        ExecuteHistory last = this.mapper.selectById(lastId);
+        if (last == null || last.getConnId() != connId) {
+            throw new ExternalException("execute-history.not-exist.id",
+                                        lastId);
         }
-        return results;
+        Date lastTime = last.getCreateTime();
+        QueryWrapper<ExecuteHistory> query = Wrappers.query();
+        query.eq("conn_id", connId)
+             .and(wrapper -> wrapper.lt("create_time", lastTime)
+                                    .or(sub -> sub.eq("create_time", lastTime)
+                                                  .lt("id", lastId)))
+             .orderByDesc("create_time", "id")
+             .last("LIMIT " + pageSize);
+        Page<ExecuteHistory> page = new Page<>(current, pageSize,
+                                               this.total(connId));
+        page.setRecords(this.mapper.selectList(query));
+        return page;
+    }
+
+    private long total(int connId) {
+        int limit = this.config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT);
+        return this.mapper.countUpTo(connId, limit);
     }
 
     public ExecuteHistory get(int id) {
+        ExecuteHistory history = this.recorder.pending(id);
+        if (history != null) {
+            return history;
+        }
         return this.mapper.selectById(id);
     }
 
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    /**
+     * The history is written asynchronously, but its id is set at once
+     */
     public int save(ExecuteHistory history) {
-        return this.mapper.insert(history);
+        this.recorder.insert(history);
+        return 1;
     }
 
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    /**
+     * Only the status and duration are updated, asynchronously
+     */
     public int update(ExecuteHistory history) {
-        return this.mapper.updateById(history);
+        this.recorder.update(history);
+        return 1;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int remove(int id) {
+        // The history to remove may be still in queue
+        this.recorder.flush();
         return this.mapper.deleteById(id);
     }
 
+    /**
+     * The histories are removed as they are written, this is to remove the
+     * exceeded ones after the limit reduced
+     */
     @Async
     @Scheduled(fixedDelay = 24 * 60 * 60 * 1000)
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public void removeExceedLimit() {
         int limit = this.config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT);
-        this.mapper.deleteExceedLimit(limit);
+        for (Integer connId : this.mapper.selectConnIds()) {
+            int rows = this.mapper.deleteExceedLimit(connId, limit,
+                                                     Integer.MAX_VALUE);
+            if (rows > 0) {
+                log.debug("Removed {} execute histories of connection {}",
+                          rows, connId);
+            }
+        }
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import com.baidu.hugegraph.config.CacheConfig;
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.exception.InternalException;
+import com.baidu.hugegraph.layout.ForceLayout;
+import com.baidu.hugegraph.layout.LayoutGraph;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Compute the positions of vertices in graph view on server side, so that
+ * the browser needn't lay out a large graph by itself. The layout of a
+ * result is cached by its handle, and extended by the vertices added by
+ * expanding with the vertices laid out before fixed.
+ */
+@Log4j2
+@Service
+public class GraphLayoutService {
+
+    // The distance to place the added vertex from its neighbor at first
+    private static final double EXPAND_RADIUS = 10.0;
+    private static final int RELAYOUT_LOCKS_PER_THREAD = 16;
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry registry;
+
+    private ExecutorService executor;
+    private ForceLayout forceLayout;
+    private Cache<Object, Object> layouts;
+    private Timer fullTimer;
+    private Timer incrementalTimer;
+    private Striped<Lock> relayoutLocks;
+
+    @PostConstruct
+    public void init() {
+        int threads = this.config.get(HubbleOptions.GRAPH_LAYOUT_THREADS);
+        this.executor = Executors.newFixedThreadPool(
+                        threads,
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("graph-layout-%d")
+                                .setDaemon(true).build());
+        this.forceLayout = new ForceLayout(this.executor, threads);
+
+        String name = CacheConfig.Caches.GRAPH_LAYOUT.name();
+        CaffeineCache springCache = (CaffeineCache) this.cacheManager
+                                                        .getCache(name);
+        this.layouts = springCache.getNativeCache();
+        this.relayoutLocks = Striped.lock(threads * RELAYOUT_LOCKS_PER_THREAD);
+
+        this.fullTimer = Timer.builder("hubble.graph_layout")
+                              .tag("mode", "full")
+                              .register(this.registry);
+        this.incrementalTimer = Timer.builder("hubble.graph_layout")
+                                     .tag("mode", "incremental")
+                                     .register(this.registry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Lay out the graph view of result, the layout is computed once for
+     * a result and cached by its handle
+     */
+    public GraphView layout(String handle, GraphView graphView) {
+        if (CollectionUtils.isEmpty(graphView.getVertices())) {
+            return graphView;
+        }
+        LayoutGraph layout = (LayoutGraph) this.layouts.getIfPresent(handle);
+        if (layout == null) {
+            // Lay out outside the cache to not block the other handles
+            LayoutGraph computed = this.layout(graphView);
+            layout = (LayoutGraph) this.layouts.asMap()
+                                               .putIfAbsent(handle, computed);
+            if (layout == null) {
+                layout = computed;
+            }
+        }
+        return withLayout(graphView, layout);
+    }
+
+    /**
+     * Lay out the vertices added by expanding the result of handle, the
+     * vertices laid out before are fixed, and the layout of handle is
+     * replaced by the merged one for the later expanding
+     */
+    public GraphView relayout(String handle, GraphView added) {
+        if (CollectionUtils.isEmpty(added.getVertices())) {
+            return added;
+        }
+        if (handle == null) {
+            return withLayout(added, this.layout(added));
+        }
+        // The expanding of a handle must merge into the latest layout
+        Lock lock = this.relayoutLocks.get(handle);
+        lock.lock();
+        try {
+            LayoutGraph previous;
+            previous = (LayoutGraph) this.layouts.getIfPresent(handle);
+            if (previous == null) {
+                // Nothing laid out before, lay out the added ones alone
+                return withLayout(added, this.layout(added));
+            }
+            LayoutGraph graph = this.merge(previous, added);
+            this.layouts.put(handle, graph);
+            return withLayout(added, graph);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LayoutGraph merge(LayoutGraph previous, GraphView added) {
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        for (int i = 0; i < previous.size(); i++) {
+            builder.vertex(previous.id(i), previous.x(i), previous.y(i),
+                           true, previous.degree(i));
+        }
+        // Place the added vertices around their neighbors laid out before
+        Map<Object, Object> anchors = new HashMap<>();
+        for (Edge edge : added.getEdges()) {
+            if (builder.contains(edge.sourceId())) {
+                anchors.putIfAbsent(edge.targetId(), edge.sourceId());
+            }
+            if (builder.contains(edge.targetId())) {
+                anchors.putIfAbsent(edge.sourceId(), edge.targetId());
+            }
+        }
+        for (Vertex vertex : added.getVertices()) {
+            Object id = vertex.id();
+            if (builder.contains(id)) {
+                continue;
+            }
+            Object anchor = anchors.get(id);
+            double x = anchor != null ? builder.x(anchor) : 0.0;
+            double y = anchor != null ? builder.y(anchor) : 0.0;
+            double angle = random(id).nextDouble() * 2 * Math.PI;
+            builder.vertex(id, x + EXPAND_RADIUS * Math.cos(angle),
+                           y + EXPAND_RADIUS * Math.sin(angle), false, 0);
+        }
+        addEdges(builder, added.getEdges());
+
+        LayoutGraph graph = builder.build();
+        int iterations = this.config.get(
+                         HubbleOptions.GRAPH_LAYOUT_INCR_ITERATIONS);
+        this.run(graph, iterations, this.incrementalTimer);
+        return graph;
+    }
+
+    private LayoutGraph layout(GraphView graphView) {
+        Collection<Vertex> vertices = graphView.getVertices();
+        // Scatter the vertices in a square whose area grows with the count
+        double width = 10.0 * Math.sqrt(vertices.size());
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        for (Vertex vertex : vertices) {
+            Random random = random(vertex.id());
+            builder.vertex(vertex.id(), (random.nextDouble() - 0.5) * width,
+                           (random.nextDouble() - 0.5) * width, false, 0);
+        }
+        addEdges(builder, graphView.getEdges());
+
+        LayoutGraph graph = builder.build();
+        int iterations = this.config.get(HubbleOptions.GRAPH_LAYOUT_ITERATIONS);
+        this.run(graph, iterations, this.fullTimer);
+        return graph;
+    }
+
+    private void run(LayoutGraph graph, int iterations, Timer timer) {
+        long start = System.nanoTime();
+        try {
+            this.forceLayout.run(graph, iterations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("graph-layout.failed", e,
+                                        e.getMessage());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Laid out graph with {} vertices for {} iterations",
+                  graph.size(), iterations);
+    }
+
+    private static void addEdges(LayoutGraph.Builder builder,
+                                 Collection<Edge> edges) {
+        if (edges == null) {
+            return;
+        }
+        for (Edge edge : edges) {
+            builder.edge(edge.sourceId(), edge.targetId());
+        }
+    }
+
+    private static GraphView withLayout(GraphView graphView,
+                                        LayoutGraph graph) {
+        Collection<Vertex> vertices = graphView.getVertices();
+        Map<Object, float[]> positions = new HashMap<>(vertices.size());
+        for (Vertex vertex : vertices) {
+            int index = graph.index(vertex.id());
+            if (index >= 0) {
+                positions.put(vertex.id(), new float[]{(float) graph.x(index),
+                                                       (float) graph.y(index)});
+            }
+        }
+        return new GraphView(vertices, graphView.getEdges(), positions);
+    }
+
+    /**
+     * The initial position of a vertex only depends on its id, so that the
+     * layout of the same graph is stable
+     */
+    private static Random random(Object id) {
+        return new Random(id.hashCode());
+    }
+}
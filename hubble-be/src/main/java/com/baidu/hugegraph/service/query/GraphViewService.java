@@ -0,0 +1,330 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.entity.query.TypedResult;
+import com.baidu.hugegraph.exception.InternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.gremlin.Result;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Build the graph view of gremlin results, the vertices and edges missing
+ * from the results will be fetched from server in concurrent batches
+ */
+@Log4j2
+@Service
+public class GraphViewService {
+
+    /**
+     * Find the edges between the vertices of batch and all vertices in one
+     * request, the edges leaving the set are filtered out on server side by
+     * the id of other vertex, so that no vertex of the set is loaded
+     */
+    private static final String EDGES_OF_VERTICES_GREMLIN =
+            "g.V(batchIds.toArray()).bothE()" +
+            ".where(otherV().hasId(within(allIds)))" +
+            ".dedup().limit(edgeLimit)";
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<Integer, Semaphore> permits = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private Counter sentRequests;
+    private Counter savedRequests;
+
+    @PostConstruct
+    public void init() {
+        int threads = this.config.get(HubbleOptions.GREMLIN_BATCH_QUERY_THREADS);
+        // Run in caller thread rather than reject when the queue is full
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                new ThreadFactoryBuilder().setNameFormat("batch-query-%d")
+                                          .setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.sentRequests = Counter.builder("hubble.graph_view.requests")
+                                   .tag("result", "sent")
+                                   .register(this.registry);
+        this.savedRequests = Counter.builder("hubble.graph_view.requests")
+                                    .tag("result", "saved")
+                                    .register(this.registry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    public GraphView build(int connId, TypedResult result, HugeClient client) {
+        List<Object> data = result.getData();
+        if (!result.getType().isGraph() || CollectionUtils.isEmpty(data)) {
+            return GraphView.EMPTY;
+        }
+
+        Map<Object, Vertex> vertices = new HashMap<>();
+        Map<String, Edge> edges = new HashMap<>();
+        for (Object object : data) {
+            if (object instanceof Vertex) {
+                Vertex vertex = (Vertex) object;
+                vertices.put(vertex.id(), vertex);
+            } else if (object instanceof Edge) {
+                Edge edge = (Edge) object;
+                edges.put(edge.id(), edge);
+            } else if (object instanceof Path) {
+                List<Object> elements = ((Path) object).objects();
+                for (Object element : elements) {
+                    if (element instanceof Vertex) {
+                        Vertex vertex = (Vertex) element;
+                        vertices.put(vertex.id(), vertex);
+                    } else if (element instanceof Edge) {
+                        Edge edge = (Edge) element;
+                        edges.put(edge.id(), edge);
+                    } else {
+                        return GraphView.EMPTY;
+                    }
+                }
+            }
+        }
+
+        Requests requests = new Requests();
+        if (!edges.isEmpty()) {
+            // Only fetch the vertices which haven't been resolved
+            vertices.putAll(this.verticesOfEdge(connId, edges,
+                                                vertices.keySet(),
+                                                client, requests));
+        } else {
+            if (!vertices.isEmpty()) {
+                edges = this.edgesOfVertex(connId, vertices, client, requests);
+            }
+        }
+        log.debug("Built graph view with {} vertices and {} edges, " +
+                  "sent {} requests and saved {} requests", vertices.size(),
+                  edges.size(), requests.sent, requests.saved);
+        this.sentRequests.increment(requests.sent);
+        this.savedRequests.increment(requests.saved);
+        return new GraphView(vertices.values(), edges.values());
+    }
+
+    private Map<String, Edge> edgesOfVertex(int connId,
+                                            Map<Object, Vertex> vertices,
+                                            HugeClient client,
+                                            Requests requests) {
+        int edgeLimit = this.config.get(HubbleOptions.GREMLIN_EDGES_TOTAL_LIMIT);
+        int batchSize = this.config.get(HubbleOptions.GREMLIN_BATCH_QUERY_IDS);
+        int degreeLimit = this.config.get(
+                          HubbleOptions.GREMLIN_VERTEX_DEGREE_LIMIT);
+
+        List<Object> vertexIds = new ArrayList<>(vertices.keySet());
+        Map<String, Edge> edges = new HashMap<>(vertexIds.size());
+        // The edges count for per vertex
+        Map<Object, Integer> degrees = new HashMap<>(vertexIds.size());
+        Function<List<Object>, List<Edge>> fetcher = batch -> {
+            ResultSet resultSet = client.gremlin()
+                                        .gremlin(EDGES_OF_VERTICES_GREMLIN)
+                                        .binding("allIds", vertexIds)
+                                        .binding("batchIds", batch)
+                                        .binding("edgeLimit", edgeLimit)
+                                        .execute();
+            List<Edge> results = new ArrayList<>(resultSet.size());
+            for (Iterator<Result> iter = resultSet.iterator(); iter.hasNext();) {
+                results.add(iter.next().getEdge());
+            }
+            return results;
+        };
+        Predicate<List<Edge>> consumer = results -> {
+            for (Edge edge : results) {
+                Object source = edge.sourceId();
+                Object target = edge.targetId();
+                int srcDegree = degrees.getOrDefault(source, 0);
+                int tgtDegree = degrees.getOrDefault(target, 0);
+                if (srcDegree >= degreeLimit || tgtDegree >= degreeLimit) {
+                    continue;
+                }
+                if (edges.putIfAbsent(edge.id(), edge) != null) {
+                    // The edge linked two vertices of different batches
+                    continue;
+                }
+                if (edges.size() >= edgeLimit) {
+                    // No more edges needed, skip the remaining batches
+                    return false;
+                }
+                degrees.put(source, srcDegree + 1);
+                degrees.put(target, tgtDegree + 1);
+            }
+            return true;
+        };
+        this.fetchInBatches(connId, Lists.partition(vertexIds, batchSize),
+                            fetcher, consumer, requests);
+        return edges;
+    }
+
+    private Map<Object, Vertex> verticesOfEdge(int connId,
+                                               Map<String, Edge> edges,
+                                               Set<Object> resolvedIds,
+                                               HugeClient client,
+                                               Requests requests) {
+        int batchSize = this.config.get(HubbleOptions.GREMLIN_BATCH_QUERY_IDS);
+
+        Set<Object> vertexIds = new HashSet<>(edges.size() * 2);
+        edges.values().forEach(edge -> {
+            vertexIds.add(edge.sourceId());
+            vertexIds.add(edge.targetId());
+        });
+        int allBatches = batches(vertexIds.size(), batchSize);
+        vertexIds.removeAll(resolvedIds);
+        requests.saved += allBatches - batches(vertexIds.size(), batchSize);
+
+        Map<Object, Vertex> vertices = new HashMap<>(vertexIds.size());
+        List<Object> ids = new ArrayList<>(vertexIds);
+        Function<List<Object>, List<Vertex>> fetcher = batch -> {
+            return client.traverser().vertices(batch);
+        };
+        Predicate<List<Vertex>> consumer = results -> {
+            results.forEach(vertex -> vertices.put(vertex.id(), vertex));
+            return true;
+        };
+        this.fetchInBatches(connId, Lists.partition(ids, batchSize),
+                            fetcher, consumer, requests);
+        return vertices;
+    }
+
+    /**
+     * Fetch the batches concurrently with at most batch_query_concurrency
+     * requests in flight for per connection. The consumer is called on
+     * current thread one by one, and it returns false to stop fetching the
+     * remaining batches.
+     */
+    private <T> void fetchInBatches(int connId, List<List<Object>> batches,
+                                    Function<List<Object>, T> fetcher,
+                                    Predicate<T> consumer, Requests requests) {
+        if (batches.size() == 1) {
+            requests.sent++;
+            consumer.test(fetcher.apply(batches.get(0)));
+            return;
+        }
+
+        Semaphore permits = this.connPermits(connId);
+        CompletionService<T> completion;
+        completion = new ExecutorCompletionService<>(this.executor);
+        int submitted = 0;
+        int running = 0;
+        try {
+            while (submitted < batches.size() || running > 0) {
+                // Submit batches until no more permits, at least one running
+                while (submitted < batches.size()) {
+                    if (running == 0) {
+                        permits.acquire();
+                    } else if (!permits.tryAcquire()) {
+                        break;
+                    }
+                    List<Object> batch = batches.get(submitted++);
+                    completion.submit(() -> {
+                        try {
+                            return fetcher.apply(batch);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                    running++;
+                    requests.sent++;
+                }
+
+                T results = completion.take().get();
+                running--;
+                if (!consumer.test(results)) {
+                    // The running batches will release permits by themselves
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("gremlin.execute.failed", e,
+                                        e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new InternalException("gremlin.execute.failed", cause,
+                                        cause.getMessage());
+        }
+        requests.saved += batches.size() - submitted;
+    }
+
+    private Semaphore connPermits(int connId) {
+        return this.permits.computeIfAbsent(connId, k -> {
+            int concurrency = this.config.get(
+                              HubbleOptions.GREMLIN_BATCH_QUERY_CONCURRENCY);
+            return new Semaphore(concurrency);
+        });
+    }
+
+    private static int batches(int size, int batchSize) {
+        return (size + batchSize - 1) / batchSize;
+    }
+
+    private static class Requests {
+
+        private int sent = 0;
+        private int saved = 0;
+    }
+}
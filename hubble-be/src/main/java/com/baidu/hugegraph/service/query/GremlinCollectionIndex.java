@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.baidu.hugegraph.entity.query.GremlinCollection;
+
+/**
+ * The inverted index of the gremlin collections of one connection, each
+ * collection is indexed by the trigrams of its name and content, so that
+ * the collections containing a keyword can be found without scanning all.
+ * The matching is case sensitive as LIKE does.
+ */
+public final class GremlinCollectionIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final Map<Integer, GremlinCollection> collections;
+    private final Map<String, Set<Integer>> postings;
+
+    public GremlinCollectionIndex(Collection<GremlinCollection> collections) {
+        this.collections = new HashMap<>(collections.size());
+        this.postings = new HashMap<>();
+        collections.forEach(this::put);
+    }
+
+    public synchronized int size() {
+        return this.collections.size();
+    }
+
+    public synchronized void put(GremlinCollection collection) {
+        this.remove(collection.getId());
+        this.collections.put(collection.getId(), collection);
+        for (String gram : grams(collection)) {
+            this.postings.computeIfAbsent(gram, k -> new HashSet<>())
+                         .add(collection.getId());
+        }
+    }
+
+    public synchronized void remove(int id) {
+        GremlinCollection collection = this.collections.remove(id);
+        if (collection == null) {
+            return;
+        }
+        for (String gram : grams(collection)) {
+            Set<Integer> ids = this.postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                this.postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Find the collections whose name or content contains the keyword
+     */
+    public synchronized List<GremlinCollection> search(String keyword) {
+        Collection<Integer> candidates = this.candidates(keyword);
+        List<GremlinCollection> results = new ArrayList<>(candidates.size());
+        for (Integer id : candidates) {
+            GremlinCollection collection = this.collections.get(id);
+            if (contains(collection.getName(), keyword) ||
+                contains(collection.getContent(), keyword)) {
+                results.add(collection);
+            }
+        }
+        return results;
+    }
+
+    private Collection<Integer> candidates(String keyword) {
+        if (keyword.length() < GRAM_SIZE) {
+            // Too short to be indexed, check all of them
+            return this.collections.keySet();
+        }
+        // Intersect from the shortest posting list
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String gram : grams(keyword)) {
+            Set<Integer> ids = this.postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Integer> results = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !results.isEmpty(); i++) {
+            results.retainAll(lists.get(i));
+        }
+        return results;
+    }
+
+    public static boolean contains(String text, String keyword) {
+        return text != null && text.contains(keyword);
+    }
+
+    private static Set<String> grams(GremlinCollection collection) {
+        Set<String> grams = grams(collection.getName());
+        grams.addAll(grams(collection.getContent()));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
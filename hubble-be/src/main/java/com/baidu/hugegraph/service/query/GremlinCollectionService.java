@@ -19,15 +19,24 @@
 
 package com.baidu.hugegraph.service.query;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import com.baidu.hugegraph.entity.query.GremlinCollection;
 import com.baidu.hugegraph.mapper.query.GremlinCollectionMapper;
-import com.baidu.hugegraph.util.SQLUtil;
+import com.baidu.hugegraph.util.PageUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
@@ -39,38 +48,42 @@ public class GremlinCollectionService {
     @Autowired
     private GremlinCollectionMapper mapper;
 
+    /**
+     * The inverted indexes of per connection, built at the first search
+     * and kept in step with the table after each change committed
+     */
+    private final Map<Integer, GremlinCollectionIndex> indexes =
+                  new ConcurrentHashMap<>();
+
     public IPage<GremlinCollection> list(int connId, String content,
                                          Boolean nameOrderAsc,
                                          Boolean timeOrderAsc,
                                          long current, long pageSize) {
-        QueryWrapper<GremlinCollection> query = Wrappers.query();
-        IPage<GremlinCollection> page = new Page<>(current, pageSize);
         if (!StringUtils.isEmpty(content)) {
             // Select by content
-            String value = SQLUtil.escapeLike(content);
+            List<GremlinCollection> results = this.index(connId)
+                                                  .search(content);
+            Comparator<GremlinCollection> comparator;
             if (nameOrderAsc != null) {
                 // order by name
                 assert timeOrderAsc == null;
-                query.eq("conn_id", connId).and(wrapper -> {
-                    wrapper.like("name", value).or().like("content", value);
-                });
-                query.orderBy(true, nameOrderAsc, "name");
-                return this.mapper.selectPage(page, query);
+                comparator = orderBy(GremlinCollection::getName, nameOrderAsc);
             } else if (timeOrderAsc != null) {
                 // order by time
                 assert nameOrderAsc == null;
-                query.eq("conn_id", connId).and(wrapper -> {
-                    wrapper.like("name", value).or().like("content", value);
-                });
-                query.orderBy(true, timeOrderAsc, "create_time");
-                return this.mapper.selectPage(page, query);
+                comparator = orderBy(GremlinCollection::getCreateTime,
+                                     timeOrderAsc);
             } else {
                 // order by relativity
                 assert nameOrderAsc == null && timeOrderAsc == null;
-                return this.mapper.selectByContentInPage(page, connId, content);
+                comparator = relativity(results, content);
             }
+            results.sort(comparator.thenComparing(GremlinCollection::getId));
+            return PageUtil.page(results, (int) current, (int) pageSize);
         } else {
             // Select all
+            QueryWrapper<GremlinCollection> query = Wrappers.query();
+            IPage<GremlinCollection> page = new Page<>(current, pageSize);
             if (nameOrderAsc != null) {
                 // order by name
                 assert timeOrderAsc == null;
@@ -102,16 +115,84 @@ public class GremlinCollectionService {
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int save(GremlinCollection collection) {
-        return this.mapper.insert(collection);
+        int rows = this.mapper.insert(collection);
+        this.afterCommit(() -> this.indexed(collection));
+        return rows;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int update(GremlinCollection collection) {
-        return this.mapper.updateById(collection);
+        int rows = this.mapper.updateById(collection);
+        this.afterCommit(() -> this.indexed(collection));
+        return rows;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public int remove(int id) {
-        return this.mapper.deleteById(id);
+        int rows = this.mapper.deleteById(id);
+        this.afterCommit(() -> {
+            this.indexes.values().forEach(index -> index.remove(id));
+        });
+        return rows;
+    }
+
+    private GremlinCollectionIndex index(int connId) {
+        return this.indexes.computeIfAbsent(connId, k -> {
+            QueryWrapper<GremlinCollection> query = Wrappers.query();
+            query.eq("conn_id", connId);
+            return new GremlinCollectionIndex(this.mapper.selectList(query));
+        });
+    }
+
+    private void indexed(GremlinCollection collection) {
+        // The index will load it if not built yet
+        this.indexes.computeIfPresent(collection.getConnId(), (k, index) -> {
+            index.put(collection);
+            return index;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+
+    private static <T extends Comparable<? super T>>
+            Comparator<GremlinCollection> orderBy(
+            Function<GremlinCollection, T> key,
+            boolean isAsc) {
+        Comparator<T> order = Comparator.nullsFirst(Comparator.naturalOrder());
+        return Comparator.comparing(key, isAsc ? order : order.reversed());
+    }
+
+    /**
+     * Same as the ranking by LIKE before: matched both name and content
+     * first, then only name, then only content, the newer the former
+     */
+    private static Comparator<GremlinCollection> relativity(
+                                                 List<GremlinCollection> results,
+                                                 String content) {
+        Map<Integer, Integer> ranks = new HashMap<>(results.size());
+        for (GremlinCollection collection : results) {
+            boolean inName = GremlinCollectionIndex.contains(
+                             collection.getName(), content);
+            boolean inContent = GremlinCollectionIndex.contains(
+                                collection.getContent(), content);
+            int rank = inName ? (inContent ? 0 : 1) : 2;
+            ranks.put(collection.getId(), rank);
+        }
+        Comparator<GremlinCollection> comparator = Comparator.comparing(
+                                                   c -> ranks.get(c.getId()));
+        return comparator.thenComparing(orderBy(GremlinCollection::getCreateTime,
+                                                false));
     }
 }
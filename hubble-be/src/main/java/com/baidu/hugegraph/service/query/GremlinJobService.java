@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.entity.enums.ExecuteStatus;
+import com.baidu.hugegraph.entity.enums.ExecuteType;
+import com.baidu.hugegraph.entity.enums.JobPhase;
+import com.baidu.hugegraph.entity.enums.JobStatus;
+import com.baidu.hugegraph.entity.query.ExecuteHistory;
+import com.baidu.hugegraph.entity.query.GremlinJob;
+import com.baidu.hugegraph.entity.query.GremlinQuery;
+import com.baidu.hugegraph.entity.query.GremlinResult;
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
+import com.baidu.hugegraph.entity.query.JsonView;
+import com.baidu.hugegraph.exception.ExternalException;
+import com.baidu.hugegraph.exception.InternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.util.HubbleUtil;
+import com.baidu.hugegraph.util.PageUtil;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class GremlinJobService {
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private GremlinQueryService queryService;
+    @Autowired
+    private ExecuteHistoryService historyService;
+
+    private final AtomicInteger idGenerator = new AtomicInteger(0);
+    private final Map<Integer, GremlinJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = this.config.get(HubbleOptions.GREMLIN_JOB_POOL_SIZE);
+        int capacity = this.config.get(HubbleOptions.GREMLIN_JOB_QUEUE_CAPACITY);
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                new ThreadFactoryBuilder().setNameFormat("gremlin-job-%d")
+                                          .setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.info("Shutdown gremlin job executor");
+        this.executor.shutdownNow();
+    }
+
+    public List<GremlinJob> list(int connId) {
+        return this.jobs.values().stream()
+                   .filter(job -> job.getConnId() == connId)
+                   .sorted(Comparator.comparing(GremlinJob::getId).reversed())
+                   .collect(Collectors.toList());
+    }
+
+    public GremlinJob get(int connId, int id) {
+        GremlinJob job = this.jobs.get(id);
+        if (job == null || job.getConnId() != connId) {
+            throw new ExternalException("gremlin-job.not-exist.id", id);
+        }
+        return job;
+    }
+
+    public GremlinJob submit(int connId, GremlinQuery query) {
+        Date createTime = HubbleUtil.nowDate();
+        // Insert execute history, it will be updated when the job finished
+        ExecuteHistory history;
+        history = new ExecuteHistory(null, connId, ExecuteType.GREMLIN,
+                                     query.getContent(), ExecuteStatus.RUNNING,
+                                     -1L, createTime);
+        int rows = this.historyService.save(history);
+        if (rows != 1) {
+            throw new InternalException("entity.insert.failed", history);
+        }
+
+        if (!CollectionUtils.isEmpty(query.getViews())) {
+            // The records and total of job are read from the json view
+            Set<GremlinResult.View> views = EnumSet.copyOf(query.getViews());
+            views.add(GremlinResult.View.JSON);
+            query.setViews(views);
+        }
+        GremlinJob job = GremlinJob.builder()
+                                   .id(this.idGenerator.incrementAndGet())
+                                   .connId(connId)
+                                   .historyId(history.getId())
+                                   .content(query.getContent())
+                                   .status(JobStatus.PENDING)
+                                   .phase(JobPhase.QUEUED)
+                                   .createTime(createTime)
+                                   .build();
+        this.jobs.put(job.getId(), job);
+        try {
+            job.setFuture(this.executor.submit(() -> this.run(job, query)));
+        } catch (RejectedExecutionException e) {
+            this.finish(job, JobStatus.FAILED, e.getMessage());
+            this.jobs.remove(job.getId());
+            int capacity = this.config.get(
+                           HubbleOptions.GREMLIN_JOB_QUEUE_CAPACITY);
+            throw new ExternalException("gremlin-job.reached-limit", capacity);
+        }
+        return job;
+    }
+
+    public GremlinJob cancel(int connId, int id) {
+        GremlinJob job = this.get(connId, id);
+        if (!this.finish(job, JobStatus.CANCELLED, null)) {
+            throw new ExternalException("gremlin-job.cancel.finished",
+                                        id, job.getStatus());
+        }
+        if (job.getFuture() != null) {
+            /*
+             * The pending job won't be scheduled any more, the running job
+             * will be interrupted, but the request that has been sent to
+             * server may still go on until it's done, its result will be
+             * discarded then
+             */
+            job.getFuture().cancel(true);
+        }
+        return job;
+    }
+
+    public GremlinResult result(int connId, int id) {
+        GremlinJob job = this.get(connId, id);
+        if (job.getStatus() != JobStatus.SUCCESS) {
+            throw new ExternalException("gremlin-job.result.unavailable",
+                                        id, job.getStatus());
+        }
+        return job.getResult();
+    }
+
+    public IPage<Object> records(int connId, int id, int pageNo, int pageSize) {
+        JsonView jsonView = this.result(connId, id).getJsonView();
+        List<Object> records = jsonView.getData() != null ?
+                               jsonView.getData() : Collections.emptyList();
+        return PageUtil.page(records, pageNo, pageSize);
+    }
+
+    @Async
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void removeExpiredJobs() {
+        long retainTime = this.config.get(HubbleOptions.GREMLIN_JOB_RETAIN_TIME);
+        long expiredTime = System.currentTimeMillis() -
+                           TimeUnit.SECONDS.toMillis(retainTime);
+        this.jobs.values().removeIf(job -> {
+            Date endTime = job.getEndTime();
+            return endTime != null && endTime.getTime() < expiredTime;
+        });
+    }
+
+    private void run(GremlinJob job, GremlinQuery query) {
+        synchronized (job) {
+            if (job.getStatus() != JobStatus.PENDING) {
+                return;
+            }
+            job.setStatus(JobStatus.RUNNING);
+            job.setPhase(JobPhase.EXECUTING);
+            job.setStartTime(HubbleUtil.nowDate());
+        }
+        try {
+            GremlinResult result = this.queryService.executeQuery(
+                                   job.getConnId(), query,
+                                   handle -> this.executed(job, handle));
+            synchronized (job) {
+                if (job.getStatus().isFinished()) {
+                    // Cancelled by user during running, discard the result
+                    return;
+                }
+                job.setResult(result);
+                List<Object> data = result.getJsonView().getData();
+                job.setTotal(data != null ? data.size() : 0);
+                this.finish(job, JobStatus.SUCCESS, null);
+            }
+        } catch (Throwable e) {
+            log.debug("Failed to execute gremlin job {}", job.getId(), e);
+            this.finish(job, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * The gremlin has been executed, the views are going to be built
+     */
+    private void executed(GremlinJob job, GremlinResultHandle handle) {
+        List<Object> data = handle.getTypedResult().getData();
+        synchronized (job) {
+            if (!job.getStatus().isFinished()) {
+                job.setReceived(data != null ? data.size() : 0);
+                job.setPhase(JobPhase.BUILDING_VIEWS);
+            }
+        }
+    }
+
+    /**
+     * Mark the job as finished with the specified status and update the
+     * associated execute history, only the first call takes effect
+     */
+    private boolean finish(GremlinJob job, JobStatus status, String message) {
+        synchronized (job) {
+            if (job.getStatus().isFinished()) {
+                return false;
+            }
+            Date now = HubbleUtil.nowDate();
+            if (job.getStartTime() == null) {
+                job.setStartTime(now);
+            }
+            job.setEndTime(now);
+            job.setMessage(message);
+            job.setStatus(status);
+            job.setPhase(JobPhase.DONE);
+        }
+
+        ExecuteHistory history = new ExecuteHistory();
+        history.setId(job.getHistoryId());
+        history.setStatus(status.toExecuteStatus());
+        history.setDuration(job.getDuration());
+        int rows = this.historyService.update(history);
+        if (rows != 1) {
+            log.error("Failed to save execute history entity {}", history);
+        }
+        return true;
+    }
+}
@@ -19,30 +19,38 @@
 
 package com.baidu.hugegraph.service.query;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import com.baidu.hugegraph.api.gremlin.GremlinRequest;
+import com.baidu.hugegraph.common.Constant;
 import com.baidu.hugegraph.config.HugeConfig;
 import com.baidu.hugegraph.driver.HugeClient;
 import com.baidu.hugegraph.entity.query.AdjacentQuery;
+import com.baidu.hugegraph.entity.query.CompactGremlinResult;
 import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.entity.query.GremlinCacheKey;
 import com.baidu.hugegraph.entity.query.GremlinQuery;
 import com.baidu.hugegraph.entity.query.GremlinResult;
 import com.baidu.hugegraph.entity.query.GremlinResult.Type;
+import com.baidu.hugegraph.entity.query.GremlinResult.View;
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
 import com.baidu.hugegraph.entity.query.JsonView;
 import com.baidu.hugegraph.entity.query.TableView;
 import com.baidu.hugegraph.entity.query.TypedResult;
@@ -53,6 +61,7 @@ import com.baidu.hugegraph.exception.InternalException;
 import com.baidu.hugegraph.exception.ServerException;
 import com.baidu.hugegraph.options.HubbleOptions;
 import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.service.GraphEndpointService;
 import com.baidu.hugegraph.service.HugeClientPoolService;
 import com.baidu.hugegraph.service.schema.VertexLabelService;
 import com.baidu.hugegraph.structure.constant.Direction;
@@ -62,10 +71,10 @@ import com.baidu.hugegraph.structure.graph.Path;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.structure.gremlin.Result;
 import com.baidu.hugegraph.structure.gremlin.ResultSet;
-import com.baidu.hugegraph.util.GremlinUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -95,43 +104,238 @@ public class GremlinQueryService {
     private HugeClientPoolService poolService;
     @Autowired
     private VertexLabelService vlService;
+    @Autowired
+    private ObjectMapper mapper;
+    @Autowired
+    private GremlinResultCacheService cacheService;
+    @Autowired
+    private GraphViewService graphViewService;
+    @Autowired
+    private GraphLayoutService layoutService;
+    @Autowired
+    private GraphEndpointService endpointService;
+    @Autowired
+    private GremlinRewriteService rewriteService;
 
     private HugeClient getClient(int connId) {
         return this.poolService.getOrCreate(connId);
     }
 
     public GremlinResult executeQuery(int connId, GremlinQuery query) {
-        HugeClient client = this.getClient(connId);
+        return this.executeQuery(connId, query, handle -> {});
+    }
 
+    /**
+     * The listener is called with the executed result before building the
+     * views, which may take long for a large graph view
+     */
+    public GremlinResult executeQuery(int connId, GremlinQuery query,
+                                      Consumer<GremlinResultHandle> executed) {
+        GremlinResultHandle handle = this.execute(connId, query);
+        executed.accept(handle);
+        return this.buildResult(handle, query.getViews(), query.isLayout());
+    }
+
+    /**
+     * Execute the gremlin and return the result in compact format, or in
+     * normal format if the result can't be compacted
+     */
+    public Object executeCompactQuery(int connId, GremlinQuery query) {
+        GremlinResultHandle handle = this.execute(connId, query);
+        GremlinResult result = this.buildResult(handle, query.getViews(),
+                                                query.isLayout());
+        return compact(handle, result);
+    }
+
+    private GremlinResultHandle execute(int connId, GremlinQuery query) {
         log.debug("The original gremlin ==> {}", query.getContent());
-        String gremlin = this.optimize(query.getContent());
+        String gremlin = this.rewriteService.rewrite(query.getContent());
         log.debug("The optimized gremlin ==> {}", gremlin);
-        // Execute gremlin query
-        ResultSet resultSet = this.executeGremlin(gremlin, client);
-        // Scan data, vote the result type
-        TypedResult typedResult = this.parseResults(resultSet);
-        // Build json view
-        JsonView jsonView = new JsonView(typedResult.getData());
-        // Build table view
-        TableView tableView = this.buildTableView(typedResult);
-        // Build graph view
-        GraphView graphView = this.buildGraphView(typedResult, client);
-        return GremlinResult.builder()
-                            .type(typedResult.getType())
-                            .jsonView(jsonView)
-                            .tableView(tableView)
-                            .graphView(graphView)
-                            .build();
+
+        GremlinCacheKey cacheKey = null;
+        GremlinResultHandle handle = null;
+        if (this.cacheService.cacheable(query, gremlin)) {
+            cacheKey = this.cacheService.key(connId, gremlin);
+            handle = this.cacheService.get(cacheKey);
+        }
+
+        if (handle == null) {
+            // Execute gremlin query
+            ResultSet resultSet = this.executeGremlin(connId, gremlin);
+            if (GremlinResultCacheService.isWrite(gremlin)) {
+                // The cached results may be out of date after executing
+                this.cacheService.written(connId, gremlin);
+            }
+            // Scan data, vote the result type
+            TypedResult typedResult = this.parseResults(resultSet);
+            handle = this.cacheService.newHandle(connId, typedResult);
+            if (cacheKey != null) {
+                this.cacheService.put(cacheKey, handle);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Build the views of an executed result, which weren't requested when
+     * executing the gremlin
+     */
+    public Object getResult(int connId, String handleId, Set<View> views,
+                            boolean compact, boolean layout) {
+        GremlinResultHandle handle = this.cacheService.getHandle(connId,
+                                                                 handleId);
+        GremlinResult result = this.buildResult(handle, views, layout);
+        return compact ? compact(handle, result) : result;
+    }
+
+    private static Object compact(GremlinResultHandle handle,
+                                  GremlinResult result) {
+        List<Object> data = handle.getTypedResult().getData();
+        CompactGremlinResult compact = CompactGremlinResult.of(result, data);
+        return compact != null ? compact : result;
+    }
+
+    /**
+     * Only build the requested views, all views will be built if no view is
+     * specified. The graph view is the most expensive one since it may send
+     * requests to fetch the missing vertices or edges, and it's laid out
+     * on server side if layout is true.
+     */
+    private GremlinResult buildResult(GremlinResultHandle handle,
+                                      Set<View> views, boolean layout) {
+        if (CollectionUtils.isEmpty(views)) {
+            views = EnumSet.allOf(View.class);
+        }
+        int connId = handle.getConnId();
+        TypedResult typedResult = handle.getTypedResult();
+        GremlinResult result = GremlinResult.builder()
+                                            .type(typedResult.getType())
+                                            .handle(handle.getId())
+                                            .build();
+        if (views.contains(View.JSON)) {
+            result.setJsonView(handle.view(View.JSON, () -> {
+                return new JsonView(typedResult.getData());
+            }));
+        }
+        if (views.contains(View.TABLE)) {
+            result.setTableView(handle.view(View.TABLE, () -> {
+                return this.buildTableView(typedResult);
+            }));
+        }
+        if (views.contains(View.GRAPH)) {
+            GraphView graphView = handle.view(View.GRAPH, () -> {
+                // Only read the missing elements, any endpoint can serve
+                return this.endpointService.execute(connId, client -> {
+                    return this.graphViewService.build(connId, typedResult,
+                                                       client);
+                });
+            });
+            if (layout) {
+                graphView = this.layoutService.layout(handle.getId(),
+                                                      graphView);
+            }
+            result.setGraphView(graphView);
+        }
+        return result;
+    }
+
+    /**
+     * Execute the gremlin and return the raw result set, the results will
+     * be deserialized lazily when they are written by writeResults()
+     */
+    public ResultSet executeQueryInStream(int connId, GremlinQuery query) {
+        log.debug("The original gremlin ==> {}", query.getContent());
+        String gremlin = this.rewriteService.rewrite(query.getContent());
+        log.debug("The optimized gremlin ==> {}", gremlin);
+        ResultSet resultSet = this.executeGremlin(connId, gremlin);
+        if (GremlinResultCacheService.isWrite(gremlin)) {
+            this.cacheService.written(connId, gremlin);
+        }
+        return resultSet;
+    }
+
+    /**
+     * Write the results one by one into the output as a json view, the
+     * format is same as the normal response except that the table view and
+     * graph view are not included. The "status" and "message" are written
+     * at the end, so that an error occurred halfway can still be reported.
+     *
+     * @return true if all results are written successfully
+     */
+    public boolean writeResults(ResultSet resultSet, OutputStream output)
+                             throws IOException {
+        int flushSize = this.config.get(HubbleOptions.GREMLIN_STREAM_FLUSH_SIZE);
+        Map<Type, Integer> typeVotes = new EnumMap<>(Type.class);
+        try (JsonGenerator generator = this.mapper.getFactory()
+                                                  .createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("data");
+            generator.writeObjectFieldStart("json_view");
+            generator.writeArrayFieldStart("data");
+
+            String failure = null;
+            int count = 0;
+            try {
+                Iterator<Result> iter = resultSet != null ?
+                                        resultSet.iterator() :
+                                        Collections.emptyIterator();
+                while (iter.hasNext()) {
+                    Result result = iter.next();
+                    if (result == null) {
+                        // NOTE: null value doesn't vote
+                        continue;
+                    }
+                    Object object = result.getObject();
+                    typeVotes.merge(typeOf(object), 1, Integer::sum);
+                    generator.writeObject(object);
+                    if (++count % flushSize == 0) {
+                        generator.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // The client may have gone away, nothing can be written
+                throw e;
+            } catch (Exception e) {
+                log.error("Failed to write gremlin results in stream", e);
+                failure = e.getMessage();
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeObjectField("type", voteType(typeVotes));
+            generator.writeEndObject();
+            if (failure == null) {
+                generator.writeNumberField("status", Constant.STATUS_OK);
+                generator.writeNullField("message");
+            } else {
+                generator.writeNumberField("status",
+                                           Constant.STATUS_INTERNAL_ERROR);
+                generator.writeStringField("message", failure);
+            }
+            generator.writeNullField("cause");
+            generator.writeEndObject();
+            return failure == null;
+        }
     }
 
     public GremlinResult expandVertex(int connId, AdjacentQuery query) {
-        HugeClient client = this.getClient(connId);
+        // The layout to extend must belong to a result of the connection
+        String handle = null;
+        if (query.isLayout() && query.getHandle() != null) {
+            handle = this.cacheService.getHandle(connId, query.getHandle())
+                                      .getId();
+        }
 
         // Build gremlin query
-        String gremlin = this.buildGremlinQuery(connId, query);
-        log.debug("expand vertex gremlin ==> {}", gremlin);
+        int degreeLimit = this.config.get(
+                          HubbleOptions.GREMLIN_VERTEX_DEGREE_LIMIT);
+        Object id = this.getRealVertexId(connId, query);
+        Map<String, Object> bindings = new HashMap<>();
+        String gremlin = buildExpandGremlin(id, query, degreeLimit, bindings);
+        log.debug("expand vertex gremlin ==> {}, bindings ==> {}",
+                  gremlin, bindings);
         // Execute gremlin query
-        ResultSet resultSet = this.executeGremlin(gremlin, client);
+        ResultSet resultSet = this.executeGremlin(connId, gremlin, bindings);
 
         List<Vertex> vertices = new ArrayList<>(resultSet.size());
         List<Edge> edges = new ArrayList<>(resultSet.size());
@@ -144,27 +348,43 @@ public class GremlinQueryService {
         }
         // Build graph view
         GraphView graphView = new GraphView(vertices, edges);
+        if (query.isLayout()) {
+            // Lay out the added vertices around the ones laid out before
+            graphView = this.layoutService.relayout(handle, graphView);
+        }
         return GremlinResult.builder()
                             .type(Type.PATH)
                             .graphView(graphView)
                             .build();
     }
 
-    private String optimize(String content) {
-        // Optimize each gremlin statemnts
-        int limit = this.config.get(HubbleOptions.GREMLIN_SUFFIX_LIMIT);
-        String[] originalParts = StringUtils.split(content, ";");
-        String[] optimizeParts = new String[originalParts.length];
-        for (int i = 0; i < originalParts.length; i++) {
-            String part = originalParts[i];
-            optimizeParts[i] = GremlinUtil.optimizeLimit(part, limit);
+    /**
+     * The read-only gremlin may be served by any endpoint of the connection,
+     * the others must be sent to the connection host. The client of host is
+     * only got for writing, so that reading goes on if the host is down.
+     */
+    private ResultSet executeGremlin(int connId, String gremlin) {
+        return this.executeGremlin(connId, gremlin, Collections.emptyMap());
+    }
+
+    private ResultSet executeGremlin(int connId, String gremlin,
+                                     Map<String, Object> bindings) {
+        if (GremlinResultCacheService.isWrite(gremlin)) {
+            return this.executeGremlin(gremlin, bindings,
+                                       this.getClient(connId));
         }
-        return StringUtils.join(optimizeParts, ";");
+        return this.endpointService.execute(connId, endpointClient -> {
+            return this.executeGremlin(gremlin, bindings, endpointClient);
+        });
     }
 
-    private ResultSet executeGremlin(String gremlin, HugeClient client) {
+    private ResultSet executeGremlin(String gremlin,
+                                     Map<String, Object> bindings,
+                                     HugeClient client) {
         try {
-            return client.gremlin().gremlin(gremlin).execute();
+            GremlinRequest.Builder request = client.gremlin().gremlin(gremlin);
+            bindings.forEach(request::binding);
+            return request.execute();
         } catch (ServerException e) {
             String exception = e.exception();
             log.error("Gremlin execute failed: {}", exception);
@@ -203,7 +423,7 @@ public class GremlinQueryService {
             return new TypedResult(Type.EMPTY, null);
         }
 
-        Map<Type, Integer> typeVotes = new HashMap<>();
+        Map<Type, Integer> typeVotes = new EnumMap<>(Type.class);
         List<Object> typedData = new ArrayList<>(resultSet.size());
         while (iter.hasNext()) {
             Result result = iter.next();
@@ -212,30 +432,34 @@ public class GremlinQueryService {
                 continue;
             }
             Object object = result.getObject();
-            Type type;
-            if (object instanceof Vertex) {
-                type = Type.VERTEX;
-            } else if (object instanceof Edge) {
-                type = Type.EDGE;
-            } else if (object instanceof Path) {
-                type = Type.PATH;
-            } else {
-                type = Type.GENERAL;
-            }
-            typeVotes.compute(type, (k, v) -> v == null ? 1 : v + 1);
+            typeVotes.merge(typeOf(object), 1, Integer::sum);
             typedData.add(object);
         }
 
-        Type type;
-        if (typeVotes.isEmpty()) {
-            type = Type.EMPTY;
+        Type type = voteType(typeVotes);
+        return new TypedResult(type, typedData);
+    }
+
+    private static Type typeOf(Object object) {
+        if (object instanceof Vertex) {
+            return Type.VERTEX;
+        } else if (object instanceof Edge) {
+            return Type.EDGE;
+        } else if (object instanceof Path) {
+            return Type.PATH;
         } else {
-            // Find the key with max value
-            type = Collections.max(typeVotes.entrySet(),
-                                   Comparator.comparingInt(Map.Entry::getValue))
-                              .getKey();
+            return Type.GENERAL;
         }
-        return new TypedResult(type, typedData);
+    }
+
+    private static Type voteType(Map<Type, Integer> typeVotes) {
+        if (typeVotes.isEmpty()) {
+            return Type.EMPTY;
+        }
+        // Find the key with max value
+        return Collections.max(typeVotes.entrySet(),
+                               Comparator.comparingInt(Map.Entry::getValue))
+                          .getKey();
     }
 
     private TableView buildTableView(TypedResult typedResult) {
@@ -298,60 +522,24 @@ public class GremlinQueryService {
         }
     }
 
-    private GraphView buildGraphView(TypedResult result, HugeClient client) {
-        List<Object> data = result.getData();
-        if (!result.getType().isGraph() || CollectionUtils.isEmpty(data)) {
-            return GraphView.EMPTY;
-        }
-
-        Map<Object, Vertex> vertices = new HashMap<>();
-        Map<String, Edge> edges = new HashMap<>();
-        for (Object object : data) {
-            if (object instanceof Vertex) {
-                Vertex vertex = (Vertex) object;
-                vertices.put(vertex.id(), vertex);
-            } else if (object instanceof Edge) {
-                Edge edge = (Edge) object;
-                edges.put(edge.id(), edge);
-            } else if (object instanceof Path) {
-                List<Object> elements = ((Path) object).objects();
-                for (Object element : elements) {
-                    if (element instanceof Vertex) {
-                        Vertex vertex = (Vertex) element;
-                        vertices.put(vertex.id(), vertex);
-                    } else if (element instanceof Edge) {
-                        Edge edge = (Edge) element;
-                        edges.put(edge.id(), edge);
-                    } else {
-                        return GraphView.EMPTY;
-                    }
-                }
-            }
-        }
-
-        if (!edges.isEmpty()) {
-            if (vertices.isEmpty()) {
-                vertices = this.verticesOfEdge(edges, client);
-            } else {
-                // TODO: reduce the number of requests
-                vertices.putAll(this.verticesOfEdge(edges, client));
-            }
+    /**
+     * Build the gremlin to expand the vertex, the script only varies with
+     * the direction, whether edge label exists and the operators of
+     * conditions, the id, labels and values are passed as bindings. So the
+     * server compiles a few scripts and then hits its script cache.
+     */
+    public static String buildExpandGremlin(Object id, AdjacentQuery query,
+                                            int degreeLimit,
+                                            Map<String, Object> bindings) {
+        StringBuilder sb = new StringBuilder("g.V(");
+        // vertex id, the uuid can't be passed through json
+        if (id instanceof UUID) {
+            sb.append("UUID.fromString(vertexId))");
+            bindings.put("vertexId", id.toString());
         } else {
-            if (!vertices.isEmpty()) {
-                edges = this.edgesOfVertex(vertices, client);
-            }
+            sb.append("vertexId)");
+            bindings.put("vertexId", id);
         }
-        return new GraphView(vertices.values(), edges.values());
-    }
-
-    private String buildGremlinQuery(int connId, AdjacentQuery query) {
-        int degreeLimit = this.config.get(
-                          HubbleOptions.GREMLIN_VERTEX_DEGREE_LIMIT);
-
-        Object id = this.getRealVertexId(connId, query);
-        StringBuilder sb = new StringBuilder("g.V(");
-        // vertex id
-        sb.append(GremlinUtil.escapeId(id)).append(")");
         // direction
         String direction = query.getDirection() != null ?
                            query.getDirection().name() :
@@ -359,23 +547,28 @@ public class GremlinQueryService {
         sb.append(".toE(").append(direction);
         // edge label
         if (query.getEdgeLabel() != null) {
-            sb.append(", '").append(query.getEdgeLabel()).append("')");
+            sb.append(", edgeLabel)");
+            bindings.put("edgeLabel", query.getEdgeLabel());
         } else {
             sb.append(")");
         }
         if (query.getConditions() != null) {
-            // properties
+            // properties, the operator has been checked by controller
+            int i = 0;
             for (AdjacentQuery.Condition condition : query.getConditions()) {
-                // key
-                sb.append(".has('").append(condition.getKey()).append("', ");
-                // value
-                sb.append(condition.getOperator()).append("(")
-                  .append(GremlinUtil.escape(condition.getValue())).append(")");
-                sb.append(")");
+                String key = "key" + i;
+                String value = "value" + i;
+                sb.append(".has(").append(key).append(", ")
+                  .append(condition.getOperator()).append("(")
+                  .append(value).append("))");
+                bindings.put(key, condition.getKey());
+                bindings.put(value, condition.getValue());
+                i++;
             }
         }
         // limit
-        sb.append(".limit(").append(degreeLimit).append(")");
+        sb.append(".limit(degreeLimit)");
+        bindings.put("degreeLimit", degreeLimit);
         // other vertex
         sb.append(".otherV().path()");
         return sb.toString();
@@ -402,68 +595,4 @@ public class GremlinQueryService {
                idStrategy == IdStrategy.CUSTOMIZE_STRING;
         return rawVertexId;
     }
-
-    private Map<String, Edge> edgesOfVertex(Map<Object, Vertex> vertices,
-                                            HugeClient client) {
-        int edgeLimit = this.config.get(HubbleOptions.GREMLIN_EDGES_TOTAL_LIMIT);
-        int batchSize = this.config.get(HubbleOptions.GREMLIN_BATCH_QUERY_IDS);
-        int degreeLimit = this.config.get(
-                          HubbleOptions.GREMLIN_VERTEX_DEGREE_LIMIT);
-
-        Set<Object> vertexIds = vertices.keySet();
-        Map<String, Edge> edges = new HashMap<>(vertexIds.size());
-        Iterables.partition(vertexIds, batchSize).forEach(batch -> {
-            List<String> escapedIds = batch.stream()
-                                           .map(GremlinUtil::escapeId)
-                                           .collect(Collectors.toList());
-            String ids = StringUtils.join(escapedIds, ",");
-            // Any better way to find two vertices has linked?
-            String gremlin = String.format("g.V(%s).bothE().dedup().limit(%s)",
-                                           ids, edgeLimit);
-            ResultSet resultSet = client.gremlin().gremlin(gremlin).execute();
-            // The edges count for per vertex
-            Map<Object, Integer> degrees = new HashMap<>(resultSet.size());
-            for (Iterator<Result> iter = resultSet.iterator(); iter.hasNext();) {
-                Edge edge = iter.next().getEdge();
-                Object source = edge.sourceId();
-                Object target = edge.targetId();
-                // only add the interconnected edges of the found vertices
-                if (!vertexIds.contains(source) || !vertexIds.contains(target)) {
-                    continue;
-                }
-                edges.put(edge.id(), edge);
-                if (edges.size() >= edgeLimit) {
-                    break;
-                }
-
-                int deg = degrees.compute(source, (k, v) -> v == null ? 1 : v + 1);
-                if (deg >= degreeLimit) {
-                    break;
-                }
-                deg = degrees.compute(target, (k, v) -> v == null ? 1 : v + 1);
-                if (deg >= degreeLimit) {
-                    break;
-                }
-            }
-        });
-        return edges;
-    }
-
-    private Map<Object, Vertex> verticesOfEdge(Map<String, Edge> edges,
-                                               HugeClient client) {
-        int batchSize = this.config.get(HubbleOptions.GREMLIN_BATCH_QUERY_IDS);
-
-        Set<Object> vertexIds = new HashSet<>(edges.size() * 2);
-        edges.values().forEach(edge -> {
-            vertexIds.add(edge.sourceId());
-            vertexIds.add(edge.targetId());
-        });
-
-        Map<Object, Vertex> vertices = new HashMap<>(vertexIds.size());
-        Iterables.partition(vertexIds, batchSize).forEach(batch -> {
-            List<Vertex> results = client.traverser().vertices(batch);
-            results.forEach(vertex -> vertices.put(vertex.id(), vertex));
-        });
-        return vertices;
-    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import com.baidu.hugegraph.config.CacheConfig;
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.entity.query.GremlinCacheKey;
+import com.baidu.hugegraph.entity.query.GremlinQuery;
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
+import com.baidu.hugegraph.entity.query.TypedResult;
+import com.baidu.hugegraph.exception.ExternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.service.schema.SchemaVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * The results cache of gremlin query, the hit/miss statistics are exposed
+ * by the actuator as metric "cache.gets" with tag cache=GREMLIN_QUERY
+ */
+@Log4j2
+@Service
+public class GremlinResultCacheService {
+
+    /**
+     * The gremlin which may modify graph or schema won't be cached, and it
+     * invalidates all cached results of the connection
+     */
+    private static final Pattern WRITE_PATTERN = Pattern.compile(
+            "\\.\\s*(addV|addE|addVertex|addEdge|drop|property|schema|" +
+            "remove|create|append|eliminate|commit|tx)\\s*\\("
+    );
+
+    // The gremlin modifying schema, the schema version should be increased
+    private static final Pattern SCHEMA_PATTERN = Pattern.compile(
+            "\\.\\s*schema\\s*\\("
+    );
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private SchemaVersionService versionService;
+
+    private boolean enabled;
+    private Cache<Object, Object> cache;
+    private Cache<Object, Object> handles;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        this.enabled = this.config.get(
+                       HubbleOptions.GREMLIN_RESULT_CACHE_ENABLED);
+        String name = CacheConfig.Caches.GREMLIN_QUERY.name();
+        CaffeineCache springCache = (CaffeineCache) this.cacheManager
+                                                        .getCache(name);
+        this.cache = springCache.getNativeCache();
+        name = CacheConfig.Caches.GREMLIN_RESULT_HANDLE.name();
+        springCache = (CaffeineCache) this.cacheManager.getCache(name);
+        this.handles = springCache.getNativeCache();
+    }
+
+    public static boolean isWrite(String gremlin) {
+        return WRITE_PATTERN.matcher(gremlin).find();
+    }
+
+    public boolean cacheable(GremlinQuery query, String gremlin) {
+        return this.enabled && !query.isBypassCache() && !isWrite(gremlin);
+    }
+
+    /**
+     * The key should be generated before executing gremlin, so that the
+     * result won't be cached with a newer schema version
+     */
+    public GremlinCacheKey key(int connId, String gremlin) {
+        long version = this.versionService.version(connId);
+        return new GremlinCacheKey(connId, version, gremlin);
+    }
+
+    public GremlinResultHandle get(GremlinCacheKey key) {
+        GremlinResultHandle handle;
+        handle = (GremlinResultHandle) this.cache.getIfPresent(key);
+        log.debug("Gremlin result cache {} for connection {}",
+                  handle != null ? "hit" : "miss", key.getConnId());
+        if (handle != null) {
+            // The handle may have expired before the cached result
+            this.handles.put(handle.getId(), handle);
+        }
+        return handle;
+    }
+
+    public void put(GremlinCacheKey key, GremlinResultHandle handle) {
+        this.cache.put(key, handle);
+    }
+
+    /**
+     * Register the result with a new handle, by which the views can be
+     * fetched later without executing gremlin again
+     */
+    public GremlinResultHandle newHandle(int connId, TypedResult result) {
+        String id = UUID.randomUUID().toString();
+        GremlinResultHandle handle = new GremlinResultHandle(id, connId,
+                                                             result);
+        this.handles.put(id, handle);
+        return handle;
+    }
+
+    public GremlinResultHandle getHandle(int connId, String id) {
+        GremlinResultHandle handle;
+        handle = (GremlinResultHandle) this.handles.getIfPresent(id);
+        if (handle == null || handle.getConnId() != connId) {
+            throw new ExternalException("gremlin.result-handle.not-exist", id);
+        }
+        return handle;
+    }
+
+    /**
+     * Called after executing a write gremlin, the cached results of the
+     * connection are out of date, and so is the schema if it's modified
+     */
+    public void written(int connId, String gremlin) {
+        if (SCHEMA_PATTERN.matcher(gremlin).find()) {
+            this.versionService.increase(connId);
+        }
+        this.invalidate(connId);
+    }
+
+    public void invalidate(int connId) {
+        this.cache.asMap().keySet().removeIf(key -> {
+            return key instanceof GremlinCacheKey &&
+                   ((GremlinCacheKey) key).getConnId() == connId;
+        });
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.exception.IllegalGremlinException;
+import com.baidu.hugegraph.gremlin.GremlinRewriter;
+import com.baidu.hugegraph.gremlin.RewriteRule;
+import com.baidu.hugegraph.gremlin.rule.CountRule;
+import com.baidu.hugegraph.gremlin.rule.DedupRule;
+import com.baidu.hugegraph.gremlin.rule.IdLookupRule;
+import com.baidu.hugegraph.gremlin.rule.LimitRule;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.util.GremlinUtil;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Rewrite the gremlin by the rules of gremlin.rewrite_rules, the rewritten
+ * gremlin is cached by the original text since the console usually runs
+ * the same gremlin repeatedly
+ */
+@Log4j2
+@Service
+public class GremlinRewriteService {
+
+    @Autowired
+    private HugeConfig config;
+
+    private GremlinRewriter rewriter;
+    private boolean limitEnabled;
+    private int limit;
+
+    @PostConstruct
+    public void init() {
+        this.limit = this.config.get(HubbleOptions.GREMLIN_SUFFIX_LIMIT);
+        this.rewriter = new GremlinRewriter();
+        List<String> names = this.config.get(
+                             HubbleOptions.GREMLIN_REWRITE_RULES);
+        for (String name : names) {
+            this.rewriter.register(this.rule(name));
+        }
+        this.limitEnabled = names.contains(LimitRule.NAME);
+    }
+
+    @Cacheable(value = "GREMLIN_REWRITE", key = "#gremlin")
+    public String rewrite(String gremlin) {
+        try {
+            return this.rewriter.rewrite(gremlin);
+        } catch (IllegalGremlinException e) {
+            log.debug("Failed to parse gremlin, only limit it by lines: " +
+                      "{} {}", e.getMessage(), Arrays.toString(e.args()));
+            return this.limitByLines(gremlin);
+        }
+    }
+
+    private String limitByLines(String gremlin) {
+        if (!this.limitEnabled) {
+            return gremlin;
+        }
+        String[] originalParts = StringUtils.split(gremlin, ";");
+        String[] optimizeParts = new String[originalParts.length];
+        for (int i = 0; i < originalParts.length; i++) {
+            String part = originalParts[i];
+            optimizeParts[i] = GremlinUtil.optimizeLimit(part, this.limit);
+        }
+        return StringUtils.join(optimizeParts, ";");
+    }
+
+    private RewriteRule rule(String name) {
+        switch (name) {
+            case IdLookupRule.NAME:
+                return new IdLookupRule();
+            case DedupRule.NAME:
+                return new DedupRule();
+            case CountRule.NAME:
+                return new CountRule();
+            case LimitRule.NAME:
+                return new LimitRule(this.limit);
+            default:
+                throw new IllegalArgumentException(String.format(
+                          "Invalid gremlin rewrite rule '%s', the valid " +
+                          "rules are [%s, %s, %s, %s]", name,
+                          IdLookupRule.NAME, DedupRule.NAME, CountRule.NAME,
+                          LimitRule.NAME));
+        }
+    }
+}
@@ -80,27 +80,32 @@ public class EdgeLabelService extends SchemaService {
 
     public List<EdgeLabelEntity> list(Collection<String> names, int connId,
                                       boolean emptyAsAll) {
-        HugeClient client = this.client(connId);
-        List<EdgeLabel> edgeLabels;
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        Collection<EdgeLabel> edgeLabels;
         if (CollectionUtils.isEmpty(names)) {
             if (emptyAsAll) {
-                edgeLabels = client.schema().getEdgeLabels();
+                edgeLabels = snapshot.edgeLabels();
             } else {
                 edgeLabels = new ArrayList<>();
             }
         } else {
-            edgeLabels = client.schema().getEdgeLabels(new ArrayList<>(names));
+            edgeLabels = snapshot.edgeLabels(names);
         }
-        List<IndexLabel> indexLabels = client.schema().getIndexLabels();
 
         List<EdgeLabelEntity> results = new ArrayList<>(edgeLabels.size());
         edgeLabels.forEach(edgeLabel -> {
-            results.add(convert(edgeLabel, indexLabels));
+            results.add(convert(edgeLabel, snapshot.indexLabels(edgeLabel)));
         });
         return results;
     }
 
     public EdgeLabelEntity get(String name, int connId) {
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        EdgeLabel cached = snapshot.edgeLabel(name);
+        if (cached != null) {
+            return convert(cached, snapshot.indexLabels(cached));
+        }
+        // Not in snapshot, ask server in case it's created by others
         HugeClient client = this.client(connId);
         try {
             EdgeLabel edgeLabel = client.schema().getEdgeLabel(name);
@@ -147,6 +152,7 @@ public class EdgeLabelService extends SchemaService {
             throw new ExternalException("schema.edgelabel.create.failed", e,
                                         entity.getName());
         }
+        this.schemaChanged(connId);
     }
 
     public void update(LabelUpdateEntity entity, int connId) {
@@ -199,11 +205,13 @@ public class EdgeLabelService extends SchemaService {
             throw new ExternalException("schema.edgelabel.update.failed", e,
                                         entity.getName());
         }
+        this.schemaChanged(connId);
     }
 
     public void remove(String name, int connId) {
         HugeClient client = this.client(connId);
         client.schema().removeEdgeLabel(name);
+        this.schemaChanged(connId);
     }
 
     public ConflictDetail checkConflict(ConflictCheckEntity entity,
@@ -299,6 +307,7 @@ public class EdgeLabelService extends SchemaService {
                                             e);
             }
         }
+        this.schemaChanged(connId);
     }
 
     public List<EdgeLabel> filter(ConflictDetail detail, HugeClient client) {
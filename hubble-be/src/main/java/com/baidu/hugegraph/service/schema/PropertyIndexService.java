@@ -63,16 +63,16 @@ public class PropertyIndexService extends SchemaService {
 
     public List<PropertyIndex> list(Collection<String> names, int connId,
                                     boolean emptyAsAll) {
-        HugeClient client = this.client(connId);
-        List<IndexLabel> indexLabels;
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        Collection<IndexLabel> indexLabels;
         if (CollectionUtils.isEmpty(names)) {
             if (emptyAsAll) {
-                indexLabels = client.schema().getIndexLabels();
+                indexLabels = snapshot.indexLabels();
             } else {
                 indexLabels = new ArrayList<>();
             }
         } else {
-            indexLabels = client.schema().getIndexLabels(new ArrayList<>(names));
+            indexLabels = snapshot.indexLabels(names);
         }
         List<PropertyIndex> results = new ArrayList<>(indexLabels.size());
         indexLabels.forEach(indexLabel -> {
@@ -83,8 +83,8 @@ public class PropertyIndexService extends SchemaService {
 
     public IPage<PropertyIndex> list(int connId, HugeType type,
                                      int pageNo, int pageSize) {
-        HugeClient client = this.client(connId);
-        List<IndexLabel> indexLabels = client.schema().getIndexLabels();
+        Collection<IndexLabel> indexLabels = this.snapshot(connId)
+                                                 .indexLabels();
 
         List<PropertyIndex> results = new ArrayList<>();
         for (IndexLabel indexLabel : indexLabels) {
@@ -124,8 +124,8 @@ public class PropertyIndexService extends SchemaService {
      */
     public IPage<PropertyIndex> list(int connId, HugeType type, String content,
                                      int pageNo, int pageSize) {
-        HugeClient client = this.client(connId);
-        List<IndexLabel> indexLabels = client.schema().getIndexLabels();
+        Collection<IndexLabel> indexLabels = this.snapshot(connId)
+                                                 .indexLabels();
 
         Map<String, List<PropertyIndex>> matchedResults = new HashMap<>();
         Map<String, List<PropertyIndex>> unMatchResults = new HashMap<>();
@@ -191,6 +191,11 @@ public class PropertyIndexService extends SchemaService {
     }
 
     private PropertyIndex get(String name, int connId) {
+        IndexLabel cached = this.snapshot(connId).indexLabel(name);
+        if (cached != null) {
+            return convert(cached);
+        }
+        // Not in snapshot, ask server in case it's created by others
         HugeClient client = this.client(connId);
         try {
             IndexLabel indexLabel = client.schema().getIndexLabel(name);
@@ -42,9 +42,7 @@ import com.baidu.hugegraph.entity.schema.SchemaEntity;
 import com.baidu.hugegraph.entity.schema.SchemaType;
 import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.exception.ServerException;
-import com.baidu.hugegraph.structure.schema.EdgeLabel;
 import com.baidu.hugegraph.structure.schema.PropertyKey;
-import com.baidu.hugegraph.structure.schema.VertexLabel;
 import com.baidu.hugegraph.util.Ex;
 
 import lombok.extern.log4j.Log4j2;
@@ -63,16 +61,16 @@ public class PropertyKeyService extends SchemaService {
 
     public List<PropertyKeyEntity> list(Collection<String> names, int connId,
                                         boolean emptyAsAll) {
-        HugeClient client = this.client(connId);
-        List<PropertyKey> propertyKeys;
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        Collection<PropertyKey> propertyKeys;
         if (CollectionUtils.isEmpty(names)) {
             if (emptyAsAll) {
-                propertyKeys = client.schema().getPropertyKeys();
+                propertyKeys = snapshot.propertyKeys();
             } else {
                 propertyKeys = new ArrayList<>();
             }
         } else {
-            propertyKeys = client.schema().getPropertyKeys(new ArrayList<>(names));
+            propertyKeys = snapshot.propertyKeys(names);
         }
         List<PropertyKeyEntity> results = new ArrayList<>(propertyKeys.size());
         propertyKeys.forEach(propertyKey -> {
@@ -82,6 +80,11 @@ public class PropertyKeyService extends SchemaService {
     }
 
     public PropertyKeyEntity get(String name, int connId) {
+        PropertyKey cached = this.snapshot(connId).propertyKey(name);
+        if (cached != null) {
+            return convert(cached);
+        }
+        // Not in snapshot, ask server in case it's created by others
         HugeClient client = this.client(connId);
         try {
             PropertyKey propertyKey = client.schema().getPropertyKey(name);
@@ -119,11 +122,13 @@ public class PropertyKeyService extends SchemaService {
         HugeClient client = this.client(connId);
         PropertyKey propertyKey = convert(entity, client);
         client.schema().addPropertyKey(propertyKey);
+        this.schemaChanged(connId);
     }
 
     public void remove(String name, int connId) {
         HugeClient client = this.client(connId);
         client.schema().removePropertyKey(name);
+        this.schemaChanged(connId);
     }
 
     /**
@@ -131,20 +136,7 @@ public class PropertyKeyService extends SchemaService {
      * any vertex label or edge label contains the property(name)
      */
     public boolean checkUsing(String name, int connId) {
-        HugeClient client = this.client(connId);
-        List<VertexLabel> vertexLabels = client.schema().getVertexLabels();
-        for (VertexLabel vertexLabel : vertexLabels) {
-            if (vertexLabel.properties().contains(name)) {
-                return true;
-            }
-        }
-        List<EdgeLabel> edgeLabels = client.schema().getEdgeLabels();
-        for (EdgeLabel edgeLabel : edgeLabels) {
-            if (edgeLabel.properties().contains(name)) {
-                return true;
-            }
-        }
-        return false;
+        return !this.snapshot(connId).labelsUsing(name).isEmpty();
     }
 
     public ConflictDetail checkConflict(ConflictCheckEntity entity,
@@ -195,6 +187,8 @@ public class PropertyKeyService extends SchemaService {
             this.addBatch(propertyKeys, client);
         } catch (Exception e) {
             throw new ExternalException("schema.propertykey.reuse.failed", e);
+        } finally {
+            this.schemaChanged(connId);
         }
     }
 
@@ -23,11 +23,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +50,7 @@ import com.baidu.hugegraph.entity.schema.SchemaLabelEntity;
 import com.baidu.hugegraph.entity.schema.SchemaStyle;
 import com.baidu.hugegraph.entity.schema.SchemaType;
 import com.baidu.hugegraph.entity.schema.Stylefiable;
+import com.baidu.hugegraph.service.GraphEndpointService;
 import com.baidu.hugegraph.service.HugeClientPoolService;
 import com.baidu.hugegraph.structure.SchemaElement;
 import com.baidu.hugegraph.structure.schema.IndexLabel;
@@ -67,6 +71,12 @@ public class SchemaService {
     private HugeConfig config;
     @Autowired
     private HugeClientPoolService poolService;
+    @Autowired
+    private SchemaVersionService versionService;
+    @Autowired
+    private SchemaSnapshotService snapshotService;
+    @Autowired
+    private GraphEndpointService endpointService;
 
     public HugeConfig config() {
         return this.config;
@@ -76,6 +86,30 @@ public class SchemaService {
         return this.poolService.getOrCreate(connId);
     }
 
+    /**
+     * Read the schema by the client of any endpoint of the connection, use
+     * client() instead to modify the schema
+     */
+    public <T> T read(int connId, Function<HugeClient, T> action) {
+        return this.endpointService.execute(connId, action);
+    }
+
+    public SchemaSnapshot snapshot(int connId) {
+        return this.snapshotService.get(connId);
+    }
+
+    /**
+     * Reload the snapshot before the using check of deleting, the schema
+     * may be modified out of hubble since the snapshot was checked
+     */
+    public void refreshSnapshot(int connId) {
+        this.snapshotService.refresh(connId);
+    }
+
+    public void schemaChanged(int connId) {
+        this.versionService.increase(connId);
+    }
+
     public static <T extends SchemaElement> List<String> collectNames(
                                                          List<T> schemas) {
         return schemas.stream().map(SchemaElement::name)
@@ -168,44 +202,41 @@ public class SchemaService {
         return indexLabels;
     }
 
+    /**
+     * Compare each unconflicted entity with the others of same name, it's
+     * EXISTED if all of them are equal to it, otherwise DUPNAME. Only the
+     * entities with same name are compared, so the conflicts are grouped
+     * by name and the equal entities in a group are counted once.
+     */
     public static <T extends SchemaEntity>
            void compareWithEachOther(ConflictDetail detail, SchemaType type) {
         List<SchemaConflict<T>> conflicts = detail.getConflicts(type);
-        for (int i = 0; i < conflicts.size(); i++) {
-            SchemaConflict<T> conflict = conflicts.get(i);
-            if (conflict.getStatus().isConflicted()) {
-                continue;
-            }
-            ConflictStatus status = compareWithOthers(i, conflicts);
-            conflict.setStatus(status);
+        Map<String, List<SchemaConflict<T>>> groups = new HashMap<>();
+        for (SchemaConflict<T> conflict : conflicts) {
+            String name = conflict.getEntity().getName();
+            groups.computeIfAbsent(name, k -> new ArrayList<>(1))
+                  .add(conflict);
         }
-    }
-
-    public static <T extends SchemaEntity>
-           ConflictStatus compareWithOthers(int currentIdx,
-                                            List<SchemaConflict<T>> conflicts) {
-        SchemaConflict<T> current = conflicts.get(currentIdx);
-        T currentEntity = current.getEntity();
-        // May changed
-        ConflictStatus status = current.getStatus();
-        for (int i = 0; i < conflicts.size(); i++) {
-            if (currentIdx == i) {
+        for (List<SchemaConflict<T>> group : groups.values()) {
+            if (group.size() < 2) {
                 continue;
             }
-            SchemaConflict<T> other = conflicts.get(i);
-            T otherEntity = other.getEntity();
-            if (!currentEntity.getName().equals(otherEntity.getName())) {
-                continue;
+            // The count of entities equal to each entity in the group
+            Map<T, Integer> equalCounts = new HashMap<>();
+            for (SchemaConflict<T> conflict : group) {
+                equalCounts.merge(conflict.getEntity(), 1, Integer::sum);
             }
-
-            if (currentEntity.equals(otherEntity)) {
-                status = ConflictStatus.EXISTED;
-            } else {
-                status = ConflictStatus.DUPNAME;
-                break;
+            for (SchemaConflict<T> conflict : group) {
+                if (conflict.getStatus().isConflicted()) {
+                    continue;
+                }
+                int equals = equalCounts.get(conflict.getEntity());
+                conflict.setStatus(equals == group.size() ?
+                                   ConflictStatus.EXISTED :
+                                   ConflictStatus.DUPNAME);
             }
         }
-        return status;
+        detail.refreshConflicts(type);
     }
 
     public static <T extends SchemaElement> void addBatch(
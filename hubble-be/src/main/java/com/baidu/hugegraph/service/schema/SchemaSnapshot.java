@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.baidu.hugegraph.structure.SchemaElement;
+import com.baidu.hugegraph.structure.schema.EdgeLabel;
+import com.baidu.hugegraph.structure.schema.IndexLabel;
+import com.baidu.hugegraph.structure.schema.PropertyKey;
+import com.baidu.hugegraph.structure.schema.SchemaLabel;
+import com.baidu.hugegraph.structure.schema.VertexLabel;
+
+/**
+ * An immutable copy of the whole schema of a connection, it's built at a
+ * schema version and must not be modified after that
+ */
+public final class SchemaSnapshot {
+
+    private final long version;
+    private final long fingerprint;
+    private final Map<String, PropertyKey> propertyKeys;
+    private final Map<String, VertexLabel> vertexLabels;
+    private final Map<String, EdgeLabel> edgeLabels;
+    private final Map<String, IndexLabel> indexLabels;
+    // The index labels grouped by type and name of base label
+    private final Map<String, List<IndexLabel>> ownedIndexLabels;
+    // The reverse dependencies: property key -> vertex/edge labels using it
+    private final Map<String, Set<String>> propertyKeyLabels;
+    // The reverse dependencies: vertex label -> edge labels linking it
+    private final Map<String, Set<String>> vertexLabelEdgeLabels;
+
+    private volatile long accessTime;
+    private volatile long checkTime;
+
+    public SchemaSnapshot(long version, List<PropertyKey> propertyKeys,
+                          List<VertexLabel> vertexLabels,
+                          List<EdgeLabel> edgeLabels,
+                          List<IndexLabel> indexLabels) {
+        this.version = version;
+        this.fingerprint = fingerprint(propertyKeys, vertexLabels,
+                                       edgeLabels, indexLabels);
+        this.propertyKeys = index(propertyKeys);
+        this.vertexLabels = index(vertexLabels);
+        this.edgeLabels = index(edgeLabels);
+        this.indexLabels = index(indexLabels);
+
+        Map<String, List<IndexLabel>> owned = new HashMap<>();
+        for (IndexLabel indexLabel : indexLabels) {
+            String owner = ownerKey(indexLabel.baseType().string(),
+                                    indexLabel.baseValue());
+            owned.computeIfAbsent(owner, k -> new ArrayList<>())
+                 .add(indexLabel);
+        }
+        owned.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        this.ownedIndexLabels = Collections.unmodifiableMap(owned);
+
+        Map<String, Set<String>> pkLabels = new HashMap<>();
+        for (VertexLabel vertexLabel : vertexLabels) {
+            for (String property : vertexLabel.properties()) {
+                addDependency(pkLabels, property, vertexLabel.name());
+            }
+        }
+        Map<String, Set<String>> vlEdgeLabels = new HashMap<>();
+        for (EdgeLabel edgeLabel : edgeLabels) {
+            for (String property : edgeLabel.properties()) {
+                addDependency(pkLabels, property, edgeLabel.name());
+            }
+            addDependency(vlEdgeLabels, edgeLabel.sourceLabel(),
+                          edgeLabel.name());
+            addDependency(vlEdgeLabels, edgeLabel.targetLabel(),
+                          edgeLabel.name());
+        }
+        this.propertyKeyLabels = freeze(pkLabels);
+        this.vertexLabelEdgeLabels = freeze(vlEdgeLabels);
+
+        this.accessTime = System.currentTimeMillis();
+        this.checkTime = this.accessTime;
+    }
+
+    public long version() {
+        return this.version;
+    }
+
+    public long fingerprint() {
+        return this.fingerprint;
+    }
+
+    public Collection<PropertyKey> propertyKeys() {
+        return this.propertyKeys.values();
+    }
+
+    public List<PropertyKey> propertyKeys(Collection<String> names) {
+        return select(this.propertyKeys, names);
+    }
+
+    public PropertyKey propertyKey(String name) {
+        return this.propertyKeys.get(name);
+    }
+
+    public Collection<VertexLabel> vertexLabels() {
+        return this.vertexLabels.values();
+    }
+
+    public List<VertexLabel> vertexLabels(Collection<String> names) {
+        return select(this.vertexLabels, names);
+    }
+
+    public VertexLabel vertexLabel(String name) {
+        return this.vertexLabels.get(name);
+    }
+
+    public Collection<EdgeLabel> edgeLabels() {
+        return this.edgeLabels.values();
+    }
+
+    public List<EdgeLabel> edgeLabels(Collection<String> names) {
+        return select(this.edgeLabels, names);
+    }
+
+    public EdgeLabel edgeLabel(String name) {
+        return this.edgeLabels.get(name);
+    }
+
+    public Collection<IndexLabel> indexLabels() {
+        return this.indexLabels.values();
+    }
+
+    public List<IndexLabel> indexLabels(Collection<String> names) {
+        return select(this.indexLabels, names);
+    }
+
+    public IndexLabel indexLabel(String name) {
+        return this.indexLabels.get(name);
+    }
+
+    /**
+     * The index labels built on the vertex label or edge label
+     */
+    public List<IndexLabel> indexLabels(SchemaLabel schemaLabel) {
+        String owner = ownerKey(schemaLabel.type(), schemaLabel.name());
+        return this.ownedIndexLabels.getOrDefault(owner,
+                                                  Collections.emptyList());
+    }
+
+    /**
+     * The names of vertex labels and edge labels containing the property key
+     */
+    public Set<String> labelsUsing(String propertyKey) {
+        return this.propertyKeyLabels.getOrDefault(propertyKey,
+                                                   Collections.emptySet());
+    }
+
+    /**
+     * The names of edge labels whose source or target is the vertex label
+     */
+    public Set<String> edgeLabelsLinking(String vertexLabel) {
+        return this.vertexLabelEdgeLabels.getOrDefault(vertexLabel,
+                                                       Collections.emptySet());
+    }
+
+    public long accessTime() {
+        return this.accessTime;
+    }
+
+    public void access() {
+        this.accessTime = System.currentTimeMillis();
+    }
+
+    public long checkTime() {
+        return this.checkTime;
+    }
+
+    public void checked() {
+        this.checkTime = System.currentTimeMillis();
+    }
+
+    private static String ownerKey(String type, String name) {
+        return type + ":" + name;
+    }
+
+    private static void addDependency(Map<String, Set<String>> dependencies,
+                                      String target, String dependent) {
+        if (target == null) {
+            return;
+        }
+        dependencies.computeIfAbsent(target, k -> new LinkedHashSet<>())
+                    .add(dependent);
+    }
+
+    private static Map<String, Set<String>> freeze(
+                                            Map<String, Set<String>> map) {
+        map.replaceAll((k, v) -> Collections.unmodifiableSet(v));
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static <T extends SchemaElement> Map<String, T> index(
+                                                 List<T> elements) {
+        Map<String, T> results = new LinkedHashMap<>(elements.size() * 2);
+        for (T element : elements) {
+            results.put(element.name(), element);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static <T> List<T> select(Map<String, T> elements,
+                                      Collection<String> names) {
+        List<T> results = new ArrayList<>(names.size());
+        for (String name : names) {
+            T element = elements.get(name);
+            if (element != null) {
+                results.add(element);
+            }
+        }
+        return results;
+    }
+
+    @SafeVarargs
+    private static long fingerprint(List<? extends SchemaElement>... groups) {
+        long fingerprint = 1L;
+        for (List<? extends SchemaElement> elements : groups) {
+            for (SchemaElement element : elements) {
+                fingerprint = 31 * fingerprint + element.toString().hashCode();
+                fingerprint = 31 * fingerprint + element.userdata().hashCode();
+            }
+            fingerprint = 31 * fingerprint + elements.size();
+        }
+        return fingerprint;
+    }
+}
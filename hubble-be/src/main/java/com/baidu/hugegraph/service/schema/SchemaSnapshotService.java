@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.schema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.driver.SchemaManager;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.service.GraphEndpointService;
+import com.baidu.hugegraph.service.HugeClientPoolService;
+import com.baidu.hugegraph.structure.schema.EdgeLabel;
+import com.baidu.hugegraph.structure.schema.IndexLabel;
+import com.baidu.hugegraph.structure.schema.PropertyKey;
+import com.baidu.hugegraph.structure.schema.VertexLabel;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Hold the schema snapshot of each connection, the snapshot is rebuilt
+ * once the schema version increased by hubble itself. The schema modified
+ * by others is found by comparing the fingerprint periodically.
+ */
+@Log4j2
+@Service
+public class SchemaSnapshotService {
+
+    private static final long CHECK_INTERVAL = 10 * 1000L;
+
+    @Autowired
+    private HugeConfig config;
+    @Autowired
+    private HugeClientPoolService poolService;
+    @Autowired
+    private SchemaVersionService versionService;
+    @Autowired
+    private GraphEndpointService endpointService;
+
+    private final Map<Integer, SchemaSnapshot> snapshots =
+                  new ConcurrentHashMap<>();
+
+    public SchemaSnapshot get(int connId) {
+        long version = this.versionService.version(connId);
+        SchemaSnapshot snapshot = this.snapshots.get(connId);
+        if (snapshot != null && snapshot.version() == version) {
+            snapshot.access();
+            return snapshot;
+        }
+        return this.refresh(connId);
+    }
+
+    /**
+     * Reload the snapshot at once, it's used by the checks which can't
+     * accept the schema modified out of hubble since the last check
+     */
+    public SchemaSnapshot refresh(int connId) {
+        long version = this.versionService.version(connId);
+        SchemaSnapshot loaded = this.load(connId, version);
+        // Keep the newer one if built concurrently
+        this.snapshots.merge(connId, loaded, (oldValue, newValue) -> {
+            return oldValue.version() > newValue.version() ?
+                   oldValue : newValue;
+        });
+        return loaded;
+    }
+
+    public void invalidate(int connId) {
+        this.snapshots.remove(connId);
+    }
+
+    /**
+     * Drop the snapshots not used since last check, and reload the others
+     * if the schema has been modified out of hubble
+     */
+    @Scheduled(fixedDelay = CHECK_INTERVAL)
+    public void checkSnapshots() {
+        long interval = TimeUnit.SECONDS.toMillis(this.config.get(
+                        HubbleOptions.SCHEMA_SNAPSHOT_CHECK_INTERVAL));
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Integer, SchemaSnapshot> entry :
+             this.snapshots.entrySet()) {
+            int connId = entry.getKey();
+            SchemaSnapshot snapshot = entry.getValue();
+            if (now - snapshot.checkTime() < interval) {
+                continue;
+            }
+            if (snapshot.accessTime() <= snapshot.checkTime() ||
+                !this.poolService.containsKey(connId)) {
+                this.snapshots.remove(connId, snapshot);
+                continue;
+            }
+            try {
+                SchemaSnapshot loaded = this.load(connId, snapshot.version());
+                if (loaded.fingerprint() == snapshot.fingerprint()) {
+                    snapshot.checked();
+                } else if (this.snapshots.replace(connId, snapshot, loaded)) {
+                    log.info("The schema of connection {} was modified " +
+                             "out of hubble, reloaded the snapshot", connId);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to check the schema of connection {}",
+                         connId, e);
+                this.snapshots.remove(connId, snapshot);
+            }
+        }
+    }
+
+    /**
+     * Any endpoint of the connection can serve the schema, so that the
+     * queries still work if the connection host is down
+     */
+    private SchemaSnapshot load(int connId, long version) {
+        SchemaSnapshot snapshot;
+        snapshot = this.endpointService.execute(connId, client -> {
+            SchemaManager schema = client.schema();
+            List<PropertyKey> propertyKeys = schema.getPropertyKeys();
+            List<VertexLabel> vertexLabels = schema.getVertexLabels();
+            List<EdgeLabel> edgeLabels = schema.getEdgeLabels();
+            List<IndexLabel> indexLabels = schema.getIndexLabels();
+            return new SchemaSnapshot(version, propertyKeys, vertexLabels,
+                                      edgeLabels, indexLabels);
+        });
+        log.debug("Loaded the schema snapshot of connection {} at version {}",
+                  connId, version);
+        return snapshot;
+    }
+}
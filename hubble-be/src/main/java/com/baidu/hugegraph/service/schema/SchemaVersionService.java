@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.service.schema;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Record a version number of schema for each connection, it will be
+ * increased every time the schema is modified through hubble, so that the
+ * data derived from schema can recognize whether it's out of date
+ */
+@Log4j2
+@Service
+public class SchemaVersionService {
+
+    private final Map<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long version(int connId) {
+        AtomicLong version = this.versions.get(connId);
+        return version == null ? 0L : version.get();
+    }
+
+    public long increase(int connId) {
+        long version = this.versions.computeIfAbsent(connId,
+                                                     k -> new AtomicLong())
+                                    .incrementAndGet();
+        log.debug("The schema version of connection {} increased to {}",
+                  connId, version);
+        return version;
+    }
+}
@@ -50,7 +50,6 @@ import com.baidu.hugegraph.entity.schema.SchemaType;
 import com.baidu.hugegraph.entity.schema.VertexLabelEntity;
 import com.baidu.hugegraph.exception.ExternalException;
 import com.baidu.hugegraph.exception.ServerException;
-import com.baidu.hugegraph.structure.schema.EdgeLabel;
 import com.baidu.hugegraph.structure.schema.IndexLabel;
 import com.baidu.hugegraph.structure.schema.PropertyKey;
 import com.baidu.hugegraph.structure.schema.VertexLabel;
@@ -77,32 +76,40 @@ public class VertexLabelService extends SchemaService {
 
     public List<VertexLabelEntity> list(Collection<String> names, int connId,
                                         boolean emptyAsAll) {
-        HugeClient client = this.client(connId);
-        List<VertexLabel> vertexLabels;
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        Collection<VertexLabel> vertexLabels;
         if (CollectionUtils.isEmpty(names)) {
             if (emptyAsAll) {
-                vertexLabels = client.schema().getVertexLabels();
+                vertexLabels = snapshot.vertexLabels();
             } else {
                 vertexLabels = new ArrayList<>();
             }
         } else {
-            vertexLabels = client.schema().getVertexLabels(new ArrayList<>(names));
+            vertexLabels = snapshot.vertexLabels(names);
         }
-        List<IndexLabel> indexLabels = client.schema().getIndexLabels();
 
         List<VertexLabelEntity> results = new ArrayList<>(vertexLabels.size());
         vertexLabels.forEach(vertexLabel -> {
-            results.add(join(vertexLabel, indexLabels));
+            results.add(join(vertexLabel, snapshot.indexLabels(vertexLabel)));
         });
         return results;
     }
 
     public VertexLabelEntity get(String name, int connId) {
-        HugeClient client = this.client(connId);
+        SchemaSnapshot snapshot = this.snapshot(connId);
+        VertexLabel cached = snapshot.vertexLabel(name);
+        if (cached != null) {
+            return join(cached, snapshot.indexLabels(cached));
+        }
+        // Not in snapshot, ask server in case it's created by others
         try {
-            VertexLabel vertexLabel = client.schema().getVertexLabel(name);
-            List<IndexLabel> indexLabels = client.schema().getIndexLabels();
-            return join(vertexLabel, indexLabels);
+            return this.read(connId, client -> {
+                VertexLabel vertexLabel = client.schema()
+                                                .getVertexLabel(name);
+                List<IndexLabel> indexLabels = client.schema()
+                                                     .getIndexLabels();
+                return join(vertexLabel, indexLabels);
+            });
         } catch (ServerException e) {
             if (e.status() == Constant.STATUS_NOT_FOUND) {
                 throw new ExternalException("schema.vertexlabel.not-exist",
@@ -133,15 +140,7 @@ public class VertexLabelService extends SchemaService {
     }
 
     public List<String> getLinkEdgeLabels(String name, int connId) {
-        HugeClient client = this.client(connId);
-        List<EdgeLabel> edgeLabels = client.schema().getEdgeLabels();
-        List<String> results = new ArrayList<>();
-        for (EdgeLabel edgeLabel : edgeLabels) {
-            if (edgeLabel.linkedVertexLabel(name)) {
-                results.add(edgeLabel.name());
-            }
-        }
-        return results;
+        return new ArrayList<>(this.snapshot(connId).edgeLabelsLinking(name));
     }
 
     public void add(VertexLabelEntity entity, int connId) {
@@ -156,6 +155,7 @@ public class VertexLabelService extends SchemaService {
             throw new ExternalException("schema.vertexlabel.create.failed", e,
                                         entity.getName());
         }
+        this.schemaChanged(connId);
     }
 
     public void update(LabelUpdateEntity entity, int connId) {
@@ -209,22 +209,17 @@ public class VertexLabelService extends SchemaService {
             throw new ExternalException("schema.vertexlabel.update.failed", e,
                                         entity.getName());
         }
+        this.schemaChanged(connId);
     }
 
     public void remove(String name, int connId) {
         HugeClient client = this.client(connId);
         client.schema().removeVertexLabel(name);
+        this.schemaChanged(connId);
     }
 
     public boolean checkUsing(String name, int connId) {
-        HugeClient client = this.client(connId);
-        List<EdgeLabel> edgeLabels = client.schema().getEdgeLabels();
-        for (EdgeLabel edgeLabel : edgeLabels) {
-            if (edgeLabel.linkedVertexLabel(name)) {
-                return true;
-            }
-        }
-        return false;
+        return !this.snapshot(connId).edgeLabelsLinking(name).isEmpty();
     }
 
     public ConflictDetail checkConflict(ConflictCheckEntity entity,
@@ -308,6 +303,7 @@ public class VertexLabelService extends SchemaService {
                 throw new ExternalException("schema.propertyindex.reuse.failed", e);
             }
         }
+        this.schemaChanged(connId);
     }
 
     public List<VertexLabel> filter(ConflictDetail detail, HugeClient client) {
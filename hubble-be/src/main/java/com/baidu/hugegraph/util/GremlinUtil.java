@@ -19,38 +19,27 @@
 
 package com.baidu.hugegraph.util;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import org.apache.commons.lang3.StringUtils;
 
-import com.google.common.collect.ImmutableSet;
-
 public final class GremlinUtil {
 
-    private static final Set<String> LIMIT_SUFFIXES = ImmutableSet.of(
+    /**
+     * The statement ends with these suffixes will be appended a limit step,
+     * the hasLabel(STR) and hasLabel(NUM) are matched in matchHasLabel()
+     */
+    private static final String[] LIMIT_SUFFIXES = new String[]{
             // vertex
             ".V()", ".out()", ".in()", ".both()", ".outV()", ".inV()",
             ".bothV()", ".otherV()",
             // edge
             ".E()", ".outE()", ".inE()", ".bothE()",
             // path
-            ".path()", ".simplePath()", ".cyclicPath()",
-            // has
-            ".hasLabel(STR)", ".hasLabel(NUM)"
-    );
-
-    private static final String[] COMPILE_SEARCH_LIST = new String[]{
-            ".", "(", ")"
-    };
-    private static final String[] COMPILE_TARGET_LIST = new String[]{
-            "\\.", "\\(", "\\)"
+            ".path()", ".simplePath()", ".cyclicPath()"
     };
 
+    private static final String HAS_LABEL = ".hasLabel(";
+    private static final String COMMENT = "//";
+
     private static final String[] ESCAPE_SEARCH_LIST = new String[]{
             "\\", "\"", "'", "\n"
     };
@@ -58,12 +47,6 @@ public final class GremlinUtil {
             "\\\\", "\\\"", "\\'", "\\n"
     };
 
-    private static final Set<Pattern> LIMIT_PATTERNS = compile(LIMIT_SUFFIXES);
-
-    private static final Set<Pattern> IGNORED_PATTERNS = ImmutableSet.of(
-            Pattern.compile("^\\s*//.*")
-    );
-
     public static String escapeId(Object id) {
         if (!(id instanceof String)) {
             return id.toString();
@@ -81,56 +64,104 @@ public final class GremlinUtil {
         return StringUtils.wrap((String) object, '\'');
     }
 
+    /**
+     * Append a limit step to each line which ends with a step that may
+     * return too many results, the comment lines are kept as they are.
+     * The lines are matched by comparing the suffix in one pass, so it
+     * costs linear time of the gremlin length.
+     */
     public static String optimizeLimit(String gremlin, int limit) {
-        String[] rawLines = StringUtils.split(gremlin, "\n");
-        List<String> newLines = new ArrayList<>(rawLines.length);
-        for (String rawLine : rawLines) {
-            boolean ignored = IGNORED_PATTERNS.stream().anyMatch(pattern -> {
-                return pattern.matcher(rawLine).find();
-            });
-            if (ignored) {
-                newLines.add(rawLine);
-                continue;
+        String limitStep = ".limit(" + limit + ")";
+        StringBuilder sb = new StringBuilder(gremlin.length() + 32);
+        int start = 0;
+        int length = gremlin.length();
+        while (start <= length) {
+            int lineEnd = gremlin.indexOf('\n', start);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            // The limit step should be put before the '\r' of "\r\n"
+            int end = lineEnd;
+            if (end > start && gremlin.charAt(end - 1) == '\r') {
+                end--;
+            }
+            sb.append(gremlin, start, end);
+            if (!isComment(gremlin, start, end) &&
+                needLimit(gremlin, start, end)) {
+                sb.append(limitStep);
             }
-            for (Pattern pattern : LIMIT_PATTERNS) {
-                Matcher matcher = pattern.matcher(rawLine);
-                if (matcher.find()) {
-                    newLines.add(rawLine + ".limit(" + limit + ")");
-                    break;
+            sb.append(gremlin, end, Math.min(lineEnd + 1, length));
+            start = lineEnd + 1;
+        }
+        return sb.toString();
+    }
+
+    private static boolean isComment(String line, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return line.startsWith(COMMENT, i) && i + COMMENT.length() <= end;
+    }
+
+    private static boolean needLimit(String line, int start, int end) {
+        if (end - start < 2 || line.charAt(end - 1) != ')') {
+            return false;
+        }
+        char last = line.charAt(end - 2);
+        if (last == '(') {
+            for (String suffix : LIMIT_SUFFIXES) {
+                int offset = end - suffix.length();
+                if (offset >= start && line.startsWith(suffix, offset)) {
+                    return true;
                 }
             }
-            newLines.add(rawLine);
+            return false;
         }
-        return StringUtils.join(newLines, "\n");
+        return matchHasLabel(line, start, end, last);
     }
 
-    private static Set<Pattern> compile(Set<String> texts) {
-        Set<Pattern> patterns = new LinkedHashSet<>();
-        for (String text : texts) {
-            String regex = StringUtils.replaceEach(text, COMPILE_SEARCH_LIST,
-                                                   COMPILE_TARGET_LIST);
-            Pattern pattern;
-            // Assume that (STR), (NUM) and () not exist at the same time
-            if (text.contains("(STR)")) {
-                // single quote
-                pattern = compile(regex.replaceAll("STR", "'[\\\\s\\\\S]+'"));
-                patterns.add(pattern);
-                // double quotes
-                pattern = compile(regex.replaceAll("STR", "\"[\\\\s\\\\S]+\""));
-                patterns.add(pattern);
-            } else if (text.contains("(NUM)")) {
-                pattern = compile(regex.replaceAll("NUM", "[\\\\d]+"));
-                patterns.add(pattern);
-            } else if (text.contains("()")) {
-                pattern = compile(regex);
-                patterns.add(pattern);
+    /**
+     * Match the line ends with hasLabel('xx'), hasLabel("xx") or
+     * hasLabel(123), note that a quoted label may be anything even
+     * containing quotes, like hasLabel('a').out('b')
+     */
+    private static boolean matchHasLabel(String line, int start, int end,
+                                         char last) {
+        if (last == '\'' || last == '"') {
+            // The label starts after the first hasLabel( with the quote
+            int from = start;
+            while (true) {
+                int offset = line.indexOf(HAS_LABEL, from);
+                int labelStart = offset + HAS_LABEL.length() + 1;
+                if (offset < 0 || labelStart >= end - 2) {
+                    return false;
+                }
+                if (line.charAt(labelStart - 1) == last) {
+                    return true;
+                }
+                from = offset + 1;
             }
         }
-        return patterns;
+        // The label is number
+        int i = end - 2;
+        while (i >= start && isDigit(line.charAt(i))) {
+            i--;
+        }
+        if (i == end - 2) {
+            return false;
+        }
+        int offset = i + 1 - HAS_LABEL.length();
+        return offset >= start && line.startsWith(HAS_LABEL, offset);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
-    private static Pattern compile(String regex) {
-        String finalRegex = "(" + regex + ")$";
-        return Pattern.compile(finalRegex);
+    private static boolean isWhitespace(char c) {
+        // Same as \\s of regex
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' ||
+               c == '\f' || c == '\r';
     }
 }
@@ -19,6 +19,8 @@
 
 package com.baidu.hugegraph.util;
 
+import java.net.ConnectException;
+
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.baidu.hugegraph.common.Constant;
@@ -33,9 +35,13 @@ import com.baidu.hugegraph.structure.gremlin.ResultSet;
 public final class HugeClientUtil {
 
     public static HugeClient tryConnect(GraphConnection connection) {
+        return tryConnect(connection, connection.getHost(),
+                          connection.getPort());
+    }
+
+    public static HugeClient tryConnect(GraphConnection connection,
+                                        String host, Integer port) {
         String graph = connection.getGraph();
-        String host = connection.getHost();
-        Integer port = connection.getPort();
         String username = connection.getUsername();
         String password = connection.getPassword();
 
@@ -99,4 +105,16 @@ public final class HugeClientUtil {
         }
         return client;
     }
+
+    public static boolean isConnectionRefused(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
+import com.baidu.hugegraph.entity.query.TypedResult;
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+
+/**
+ * Estimate the memory size in bytes of objects roughly, it's used to weigh
+ * the cached entries rather than to measure them accurately
+ */
+public final class SizeUtil {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int PRIMITIVE_SIZE = 16;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int COLLECTION_OVERHEAD = 32;
+    private static final int MAP_ENTRY_OVERHEAD = 32;
+    private static final int UNKNOWN_SIZE = 64;
+
+    public static long estimate(GremlinResultHandle handle) {
+        TypedResult typedResult = handle.getTypedResult();
+        List<Object> data = typedResult.getData();
+        if (data == null) {
+            return OBJECT_OVERHEAD;
+        }
+        long dataSize = estimate(data);
+        long size = OBJECT_OVERHEAD + dataSize;
+        // The table view just references the objects of json view
+        size += COLLECTION_OVERHEAD + (long) REFERENCE_SIZE * data.size();
+        /*
+         * The graph view may be built lazily after weighing, assume it
+         * holds as many elements as the data besides the fetched ones
+         */
+        if (typedResult.getType() != null && typedResult.getType().isGraph()) {
+            size += dataSize;
+        }
+        return size;
+    }
+
+    public static long estimate(Object object) {
+        if (object == null) {
+            return 0L;
+        }
+        if (object instanceof String) {
+            return STRING_OVERHEAD + 2L * ((String) object).length();
+        }
+        if (object instanceof Number || object instanceof Boolean ||
+            object instanceof Character) {
+            return PRIMITIVE_SIZE;
+        }
+        if (object instanceof GraphElement) {
+            return estimate((GraphElement) object);
+        }
+        if (object instanceof Path) {
+            Path path = (Path) object;
+            return OBJECT_OVERHEAD + estimate(path.labels()) +
+                   estimate(path.objects());
+        }
+        if (object instanceof Collection) {
+            long size = COLLECTION_OVERHEAD;
+            for (Object element : (Collection<?>) object) {
+                size += REFERENCE_SIZE + estimate(element);
+            }
+            return size;
+        }
+        if (object instanceof Map) {
+            long size = COLLECTION_OVERHEAD;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) object).entrySet()) {
+                size += MAP_ENTRY_OVERHEAD + estimate(e.getKey()) +
+                        estimate(e.getValue());
+            }
+            return size;
+        }
+        return UNKNOWN_SIZE;
+    }
+
+    private static long estimate(GraphElement element) {
+        long size = OBJECT_OVERHEAD + estimate(element.id()) +
+                    estimate(element.label()) +
+                    estimate(element.properties());
+        if (element instanceof Edge) {
+            Edge edge = (Edge) element;
+            size += estimate(edge.sourceId()) + estimate(edge.targetId()) +
+                    estimate(edge.sourceLabel()) +
+                    estimate(edge.targetLabel());
+        }
+        return size;
+    }
+}
@@ -12,6 +12,7 @@ CREATE TABLE IF NOT EXISTS `graph_connection` (
     `graph` VARCHAR(48) NOT NULL,
     `host` VARCHAR(48) NOT NULL DEFAULT 'localhost',
     `port` INT NOT NULL DEFAULT '8080',
+    `endpoints` VARCHAR(65535),
     `username` VARCHAR(48),
     `password` VARCHAR(48),
     `enabled` BOOLEAN NOT NULL DEFAULT true,
@@ -21,6 +22,7 @@ CREATE TABLE IF NOT EXISTS `graph_connection` (
     UNIQUE (`name`),
     UNIQUE (`graph`, `host`, `port`)
 );
+ALTER TABLE `graph_connection` ADD COLUMN IF NOT EXISTS `endpoints` VARCHAR(65535) AFTER `port`;
 
 CREATE TABLE IF NOT EXISTS `execute_history` (
     `id` INT NOT NULL AUTO_INCREMENT,
@@ -32,7 +34,8 @@ CREATE TABLE IF NOT EXISTS `execute_history` (
     `create_time` DATETIME(6) NOT NULL,
     PRIMARY KEY (`id`)
 );
-CREATE INDEX IF NOT EXISTS `execute_history_conn_id` ON `execute_history`(`conn_id`);
+DROP INDEX IF EXISTS `execute_history_conn_id`;
+CREATE INDEX IF NOT EXISTS `execute_history_conn_id_create_time` ON `execute_history`(`conn_id`, `create_time`);
 
 CREATE TABLE IF NOT EXISTS `gremlin_collection` (
     `id` INT NOT NULL AUTO_INCREMENT,
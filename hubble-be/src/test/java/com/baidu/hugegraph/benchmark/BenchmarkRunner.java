@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * The shared harness of the benchmarks in this package, it warms up an
+ * action then measures the time and the bytes allocated by the current
+ * thread over the measured rounds.
+ *
+ * The benchmarks are not run by the unit tests, run one by its main() with
+ * the test classpath, the optional arguments are listed in its doc:
+ * java -cp target/test-classes:target/classes:<deps>
+ *      com.baidu.hugegraph.benchmark.<Benchmark> [args...]
+ */
+public final class BenchmarkRunner {
+
+    private static final ThreadMXBean THREAD_BEAN =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int warmupRounds;
+    private final int measureRounds;
+
+    public BenchmarkRunner(int warmupRounds, int measureRounds) {
+        this.warmupRounds = warmupRounds;
+        this.measureRounds = measureRounds;
+    }
+
+    public static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) :
+                                     defaultValue;
+    }
+
+    public static void title(String format, Object... args) {
+        System.out.printf(format + "%n", args);
+    }
+
+    /**
+     * Measure the action as a whole loop, fit for the short ones
+     */
+    public Result measure(Action action) throws Exception {
+        for (int i = 0; i < this.warmupRounds; i++) {
+            action.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocated = THREAD_BEAN.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        Object value = null;
+        for (int i = 0; i < this.measureRounds; i++) {
+            value = action.run();
+        }
+        long total = System.nanoTime() - start;
+        allocated = THREAD_BEAN.getThreadAllocatedBytes(thread) - allocated;
+        return new Result(this.measureRounds, total, allocated, value);
+    }
+
+    /**
+     * Measure the action with a fresh input of every round, the time and
+     * the allocation of setup are excluded
+     */
+    public <T> Result measure(Callable<T> setup, InputAction<T> action)
+                              throws Exception {
+        for (int i = 0; i < this.warmupRounds; i++) {
+            action.run(setup.call());
+        }
+        long thread = Thread.currentThread().getId();
+        long total = 0L;
+        long allocated = 0L;
+        Object value = null;
+        for (int i = 0; i < this.measureRounds; i++) {
+            T input = setup.call();
+            long bytes = THREAD_BEAN.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            value = action.run(input);
+            total += System.nanoTime() - start;
+            allocated += THREAD_BEAN.getThreadAllocatedBytes(thread) - bytes;
+        }
+        return new Result(this.measureRounds, total, allocated, value);
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        Object run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface InputAction<T> {
+
+        Object run(T input) throws Exception;
+    }
+
+    public static final class Result {
+
+        private final int rounds;
+        private final long nanos;
+        private final long allocated;
+        private final Object value;
+
+        private Result(int rounds, long nanos, long allocated, Object value) {
+            this.rounds = rounds;
+            this.nanos = nanos;
+            this.allocated = allocated;
+            this.value = value;
+        }
+
+        public double micros() {
+            return this.nanos / 1e3 / this.rounds;
+        }
+
+        public double millis() {
+            return this.nanos / 1e6 / this.rounds;
+        }
+
+        public double opsPerSecond() {
+            return this.rounds * 1e9 / this.nanos;
+        }
+
+        public long allocated() {
+            return this.allocated / this.rounds;
+        }
+
+        /**
+         * The value returned by the last measured round
+         */
+        @SuppressWarnings("unchecked")
+        public <V> V value() {
+            return (V) this.value;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.baidu.hugegraph.config.JacksonConfig;
+import com.baidu.hugegraph.entity.query.CompactGremlinResult;
+import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.entity.query.GremlinResult;
+import com.baidu.hugegraph.entity.query.JsonView;
+import com.baidu.hugegraph.entity.query.TableView;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Compare the size and serialization time of a path result in normal and
+ * compact format, see {@link BenchmarkRunner} to run it.
+ * Arguments: [paths=200]
+ */
+public class CompactResultBenchmark {
+
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(500,
+                                                                      2000);
+
+    public static void main(String[] args) throws Exception {
+        int count = BenchmarkRunner.intArg(args, 0, 200);
+        ObjectMapper mapper = new ObjectMapper();
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Vertex.class,
+                             new JacksonConfig.VertexSerializer());
+        module.addSerializer(Edge.class, new JacksonConfig.EdgeSerializer());
+        mapper.registerModule(module);
+
+        List<Object> data = paths(count);
+        GremlinResult result = result(data);
+        BenchmarkRunner.title("Compact result benchmark with %s paths", count);
+
+        print("normal", RUNNER.measure(() -> {
+            return mapper.writeValueAsBytes(result);
+        }));
+        print("compact", RUNNER.measure(() -> {
+            return mapper.writeValueAsBytes(CompactGremlinResult.of(result,
+                                                                    data));
+        }));
+    }
+
+    private static void print(String name, BenchmarkRunner.Result result) {
+        byte[] bytes = result.value();
+        System.out.printf("%-10s %10s bytes, %10.3f us/op%n", name,
+                          bytes.length, result.micros());
+    }
+
+    /*
+     * The paths of two hops from a few start vertices, the vertices and
+     * edges are shared by many paths like the results of real traversal
+     */
+    private static List<Object> paths(int count) {
+        Random random = new Random(count);
+        int size = Math.max(count / 4, 2);
+        List<Vertex> vertices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Vertex vertex = new Vertex("person");
+            vertex.property("name", "person-" + i);
+            vertex.property("age", 20 + random.nextInt(40));
+            vertex.property("city", "city-" + random.nextInt(100));
+            vertex.id("1:person-" + i);
+            vertices.add(vertex);
+        }
+        List<Object> paths = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Vertex source = vertices.get(random.nextInt(4));
+            Vertex middle = vertices.get(random.nextInt(size));
+            Vertex target = vertices.get(random.nextInt(size));
+            paths.add(new Path(ImmutableList.of(source, edge(source, middle),
+                                                middle, edge(middle, target),
+                                                target)));
+        }
+        return paths;
+    }
+
+    private static Edge edge(Vertex source, Vertex target) {
+        Edge edge = new Edge("knows");
+        edge.property("weight", 0.5D);
+        edge.property("date", "2020-01-01");
+        edge.id("S" + source.id() + ">1>>S" + target.id());
+        edge.sourceId(source.id());
+        edge.targetId(target.id());
+        return edge;
+    }
+
+    private static GremlinResult result(List<Object> data) {
+        List<Object> rows = new ArrayList<>(data.size());
+        Map<Object, Vertex> vertices = new LinkedHashMap<>();
+        Map<Object, Edge> edges = new LinkedHashMap<>();
+        for (Object object : data) {
+            List<Object> ids = new ArrayList<>();
+            for (Object element : ((Path) object).objects()) {
+                if (element instanceof Vertex) {
+                    Vertex vertex = (Vertex) element;
+                    vertices.put(vertex.id(), vertex);
+                    ids.add(vertex.id());
+                } else {
+                    Edge edge = (Edge) element;
+                    edges.put(edge.id(), edge);
+                    ids.add(edge.id());
+                }
+            }
+            rows.add(ImmutableMap.of("path", ids));
+        }
+        return GremlinResult.builder()
+                            .type(GremlinResult.Type.PATH)
+                            .handle("handle")
+                            .jsonView(new JsonView(data))
+                            .tableView(new TableView(TableView.PATH_HEADER,
+                                                     rows))
+                            .graphView(new GraphView(vertices.values(),
+                                                     edges.values()))
+                            .build();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import com.baidu.hugegraph.entity.query.AdjacentQuery;
+import com.baidu.hugegraph.service.query.GremlinQueryService;
+import com.baidu.hugegraph.structure.constant.Direction;
+import com.baidu.hugegraph.util.GremlinUtil;
+
+/**
+ * Compare the expand gremlin built with inlined literals and with bindings,
+ * every distinct script is compiled once by the gremlin server, so the
+ * count of distinct scripts is the count of compilations. See
+ * {@link BenchmarkRunner} to run it.
+ * Arguments: [queries=100000]
+ */
+public class ExpandGremlinBenchmark {
+
+    // Every round builds all the queries, it's long enough without warmup
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(0, 1);
+    private static final int DEGREE_LIMIT = 100;
+    private static final String[] EDGE_LABELS = {null, "knows", "created",
+                                                 "follows"};
+    private static final String[] KEYS = {"name", "age", "weight", "date"};
+    private static final String[] OPERATORS = {"eq", "gt", "gte",
+                                               "lt", "lte"};
+
+    public static void main(String[] args) throws Exception {
+        int count = BenchmarkRunner.intArg(args, 0, 100000);
+        List<Object> ids = new ArrayList<>(count);
+        List<AdjacentQuery> queries = queries(count, ids);
+        BenchmarkRunner.title("Expand gremlin benchmark with %s queries",
+                              count);
+
+        print("inlined literals", count, RUNNER.measure(() -> {
+            Set<String> scripts = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                scripts.add(legacyExpandGremlin(ids.get(i), queries.get(i)));
+            }
+            return scripts;
+        }));
+        print("bindings", count, RUNNER.measure(() -> {
+            Set<String> scripts = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> bindings = new HashMap<>();
+                scripts.add(GremlinQueryService.buildExpandGremlin(
+                            ids.get(i), queries.get(i), DEGREE_LIMIT,
+                            bindings));
+            }
+            return scripts;
+        }));
+    }
+
+    private static void print(String name, int count,
+                              BenchmarkRunner.Result result) {
+        Set<String> scripts = result.value();
+        System.out.printf("%-20s %8s distinct scripts, %10.3f us/op%n", name,
+                          scripts.size(), result.micros() / count);
+    }
+
+    private static List<AdjacentQuery> queries(int count, List<Object> ids) {
+        Random random = new Random(count);
+        List<AdjacentQuery> queries = new ArrayList<>(count);
+        Direction[] directions = Direction.values();
+        for (int i = 0; i < count; i++) {
+            Object id;
+            switch (random.nextInt(3)) {
+                case 0:
+                    id = (long) random.nextInt(1000000);
+                    break;
+                case 1:
+                    id = new UUID(random.nextLong(), random.nextLong());
+                    break;
+                default:
+                    id = "1:person-" + random.nextInt(1000000);
+                    break;
+            }
+            ids.add(id);
+
+            int size = random.nextInt(3);
+            List<AdjacentQuery.Condition> conditions = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                String key = KEYS[random.nextInt(KEYS.length)];
+                Object value = "name".equals(key) ?
+                               "person-" + random.nextInt(1000) :
+                               random.nextInt(100);
+                String operator = "name".equals(key) ? "eq" :
+                                  OPERATORS[random.nextInt(OPERATORS.length)];
+                conditions.add(new AdjacentQuery.Condition(key, operator,
+                                                           value));
+            }
+            queries.add(AdjacentQuery.builder()
+                                     .vertexId(id.toString())
+                                     .edgeLabel(EDGE_LABELS[random.nextInt(
+                                                EDGE_LABELS.length)])
+                                     .direction(directions[random.nextInt(
+                                                directions.length)])
+                                     .conditions(conditions)
+                                     .build());
+        }
+        return queries;
+    }
+
+    /*
+     * The way before, it inlines the id, label and values into the script
+     */
+    private static String legacyExpandGremlin(Object id, AdjacentQuery query) {
+        StringBuilder sb = new StringBuilder("g.V(");
+        sb.append(GremlinUtil.escapeId(id)).append(")");
+        String direction = query.getDirection() != null ?
+                           query.getDirection().name() :
+                           Direction.BOTH.name();
+        sb.append(".toE(").append(direction);
+        if (query.getEdgeLabel() != null) {
+            sb.append(", '").append(query.getEdgeLabel()).append("')");
+        } else {
+            sb.append(")");
+        }
+        if (query.getConditions() != null) {
+            for (AdjacentQuery.Condition condition : query.getConditions()) {
+                sb.append(".has('").append(condition.getKey()).append("', ");
+                sb.append(condition.getOperator()).append("(")
+                  .append(GremlinUtil.escape(condition.getValue())).append(")");
+                sb.append(")");
+            }
+        }
+        sb.append(".limit(").append(DEGREE_LIMIT).append(")");
+        sb.append(".otherV().path()");
+        return sb.toString();
+    }
+}
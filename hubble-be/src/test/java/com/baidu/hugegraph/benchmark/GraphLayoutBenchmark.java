@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.baidu.hugegraph.layout.ForceLayout;
+import com.baidu.hugegraph.layout.LayoutGraph;
+
+/**
+ * Measure the time to lay out a random graph on server side with one
+ * thread and with more threads, see {@link BenchmarkRunner} to run it.
+ * Arguments: [vertices=10000] [edges=20000] [threads=4]
+ */
+public class GraphLayoutBenchmark {
+
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(1, 5);
+    private static final int ITERATIONS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int vertices = BenchmarkRunner.intArg(args, 0, 10000);
+        int edges = BenchmarkRunner.intArg(args, 1, 20000);
+        int threads = BenchmarkRunner.intArg(args, 2, 4);
+        BenchmarkRunner.title("Graph layout benchmark with %s vertices, %s " +
+                              "edges and %s iterations",
+                              vertices, edges, ITERATIONS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            measure("1 thread", new ForceLayout(executor, 1),
+                    vertices, edges);
+            measure(threads + " threads", new ForceLayout(executor, threads),
+                    vertices, edges);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void measure(String name, ForceLayout layout,
+                                int vertices, int edges) throws Exception {
+        BenchmarkRunner.Result result;
+        result = RUNNER.measure(() -> graph(vertices, edges), graph -> {
+            layout.run(graph, ITERATIONS);
+            return graph;
+        });
+        System.out.printf("%-12s %8.1f ms/layout%n", name, result.millis());
+    }
+
+    private static LayoutGraph graph(int vertices, int edges) {
+        Random random = new Random(1L);
+        double width = 10.0 * Math.sqrt(vertices);
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        for (int i = 0; i < vertices; i++) {
+            builder.vertex(i, (random.nextDouble() - 0.5) * width,
+                           (random.nextDouble() - 0.5) * width, false, 0);
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.edge(random.nextInt(vertices), random.nextInt(vertices));
+        }
+        return builder.build();
+    }
+}
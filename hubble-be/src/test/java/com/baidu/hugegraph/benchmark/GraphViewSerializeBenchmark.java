@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.baidu.hugegraph.config.JacksonConfig;
+import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Compare the vertex and edge serializers with the ones before, which
+ * look up the serializer and allocate string for every id and long value.
+ * See {@link BenchmarkRunner} to run it.
+ * Arguments: [elements=100000]
+ */
+public class GraphViewSerializeBenchmark {
+
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(10, 20);
+
+    public static void main(String[] args) throws Exception {
+        int count = BenchmarkRunner.intArg(args, 0, 100000);
+        GraphView graphView = graphView(count);
+        BenchmarkRunner.title("Graph view serialize benchmark with %s " +
+                              "elements", count);
+
+        ObjectMapper legacy = mapper(new LegacyVertexSerializer(),
+                                     new LegacyEdgeSerializer());
+        ObjectMapper current = mapper(new JacksonConfig.VertexSerializer(),
+                                      new JacksonConfig.EdgeSerializer());
+        if (!Arrays.equals(legacy.writeValueAsBytes(graphView),
+                           current.writeValueAsBytes(graphView))) {
+            throw new AssertionError("The serialized graph view is different");
+        }
+
+        measure("legacy", legacy, graphView);
+        measure("current", current, graphView);
+    }
+
+    private static void measure(String name, ObjectMapper mapper,
+                                GraphView graphView) throws Exception {
+        BenchmarkRunner.Result result = RUNNER.measure(() -> {
+            CountingOutputStream output = new CountingOutputStream();
+            mapper.writeValue(output, graphView);
+            return output.count;
+        });
+        System.out.printf("%-8s %10.2f ops/s, %12s bytes allocated/op, " +
+                          "%10s bytes written/op%n", name,
+                          result.opsPerSecond(), result.allocated(),
+                          result.value());
+    }
+
+    private static ObjectMapper mapper(JsonSerializer<Vertex> vertexSerializer,
+                                       JsonSerializer<Edge> edgeSerializer) {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Vertex.class, vertexSerializer);
+        module.addSerializer(Edge.class, edgeSerializer);
+        return new ObjectMapper().registerModule(module);
+    }
+
+    /*
+     * Half vertices and half edges, with the common property value types
+     */
+    private static GraphView graphView(int count) {
+        Random random = new Random(count);
+        int size = Math.max(count / 2, 1);
+        List<Vertex> vertices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Vertex vertex = new Vertex("person");
+            vertex.property("name", "person-" + i);
+            vertex.property("age", random.nextInt(100));
+            vertex.property("score", random.nextDouble());
+            vertex.property("active", random.nextBoolean());
+            vertex.property("birth", 631152000000L + random.nextInt());
+            vertex.property("tags", Arrays.asList("a", "b"));
+            vertex.id((long) i);
+            vertices.add(vertex);
+        }
+        List<Edge> edges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Object source = vertices.get(random.nextInt(size)).id();
+            Object target = vertices.get(random.nextInt(size)).id();
+            Edge edge = new Edge("knows");
+            edge.property("weight", random.nextFloat());
+            edge.property("date", "2020-01-" + (10 + random.nextInt(20)));
+            edge.property("since", (long) random.nextInt(Integer.MAX_VALUE));
+            edge.id("L" + source + ">1>>L" + target);
+            edge.sourceId(source);
+            edge.targetId(target);
+            edges.add(edge);
+        }
+        return new GraphView(vertices, edges);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count = 0L;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+
+        @Override
+        public void close() {
+            // Keep the count after written
+        }
+    }
+
+    /*
+     * The serializers before, see JacksonConfig
+     */
+    private static class LegacyVertexSerializer
+                   extends JsonSerializer<Vertex> {
+
+        @Override
+        public void serialize(Vertex vertex, JsonGenerator generator,
+                              SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", vertex.id().toString());
+            generator.writeStringField("label", vertex.label());
+            writePropertiesField(vertex.properties(), generator, provider);
+            generator.writeEndObject();
+        }
+    }
+
+    private static class LegacyEdgeSerializer extends JsonSerializer<Edge> {
+
+        @Override
+        public void serialize(Edge edge, JsonGenerator generator,
+                              SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            if (edge.id() != null) {
+                generator.writeStringField("id", edge.id());
+            }
+            generator.writeStringField("label", edge.label());
+            generator.writeStringField("source", edge.sourceId().toString());
+            generator.writeStringField("target", edge.targetId().toString());
+            writePropertiesField(edge.properties(), generator, provider);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writePropertiesField(Map<String, Object> properties,
+                                             JsonGenerator generator,
+                                             SerializerProvider provider)
+                                             throws IOException {
+        generator.writeFieldName("properties");
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            Object value = entry.getValue();
+            generator.writeFieldName(entry.getKey());
+            if (value != null) {
+                if (value instanceof Long) {
+                    generator.writeString(String.valueOf(value));
+                } else {
+                    JsonSerializer<Object> serializer;
+                    serializer = provider.findValueSerializer(value.getClass());
+                    serializer.serialize(value, generator, provider);
+                }
+            } else {
+                generator.writeNull();
+            }
+        }
+        generator.writeEndObject();
+    }
+}
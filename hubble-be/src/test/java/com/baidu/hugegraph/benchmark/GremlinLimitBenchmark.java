@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.baidu.hugegraph.util.GremlinUtil;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compare the single pass limit optimizer of gremlin with the regex way,
+ * see {@link BenchmarkRunner} to run it.
+ * Arguments: [lines=200]
+ */
+public class GremlinLimitBenchmark {
+
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(2000,
+                                                                      5000);
+    private static final int LIMIT = 250;
+
+    private static final List<String> LINES = ImmutableList.of(
+            "g.V()",
+            "g.V().hasLabel('person')",
+            "g.V().hasLabel(\"software\")",
+            "g.V().hasLabel(12)",
+            "g.V('1:marko').outE().inV().path()",
+            "g.V('1:marko').both().both().simplePath()",
+            "g.V().has('name', 'it''s a long value with \\'quotes\\'').count()",
+            "g.V().hasLabel('person').has('age', gt(20)).values('name')",
+            "// g.E().limit(10)",
+            "vertex = graph.addVertex(T.label, 'person', 'name', 'marko')",
+            "g.E().hasLabel('knows').where(outV().has('name', 'josh'))"
+    );
+
+    public static void main(String[] args) throws Exception {
+        int lines = BenchmarkRunner.intArg(args, 0, 200);
+        String script = script(lines);
+        BenchmarkRunner.title("Gremlin limit optimizer benchmark with %s " +
+                              "lines (%s chars)", lines, script.length());
+
+        String expected = regexOptimizeLimit(script, false);
+        String actual = GremlinUtil.optimizeLimit(script, LIMIT);
+        if (!expected.equals(actual)) {
+            throw new AssertionError("The optimized script is different");
+        }
+
+        print("optimizeLimit (regex)", RUNNER.measure(() -> {
+            return regexOptimizeLimit(script, true);
+        }));
+        print("optimizeLimit (single pass)", RUNNER.measure(() -> {
+            return GremlinUtil.optimizeLimit(script, LIMIT);
+        }));
+    }
+
+    private static void print(String name, BenchmarkRunner.Result result) {
+        String optimized = result.value();
+        System.out.printf("%-36s %12.3f us/op (%s chars)%n", name,
+                          result.micros(), optimized.length());
+    }
+
+    private static String script(int lines) {
+        Random random = new Random(lines);
+        List<String> results = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            results.add(LINES.get(random.nextInt(LINES.size())));
+        }
+        return StringUtils.join(results, "\n");
+    }
+
+    /*
+     * The regex way before, it appends the original line again after the
+     * limited one unless keepDuplicated is false
+     */
+    private static final Set<Pattern> LIMIT_PATTERNS = compile(
+            ".V()", ".out()", ".in()", ".both()", ".outV()", ".inV()",
+            ".bothV()", ".otherV()", ".E()", ".outE()", ".inE()", ".bothE()",
+            ".path()", ".simplePath()", ".cyclicPath()",
+            ".hasLabel(STR)", ".hasLabel(NUM)"
+    );
+
+    private static final Pattern IGNORED_PATTERN = Pattern.compile("^\\s*//.*");
+
+    private static String regexOptimizeLimit(String gremlin,
+                                             boolean keepDuplicated) {
+        String[] rawLines = StringUtils.split(gremlin, "\n");
+        List<String> newLines = new ArrayList<>(rawLines.length);
+        for (String rawLine : rawLines) {
+            if (IGNORED_PATTERN.matcher(rawLine).find()) {
+                newLines.add(rawLine);
+                continue;
+            }
+            boolean limited = false;
+            for (Pattern pattern : LIMIT_PATTERNS) {
+                if (pattern.matcher(rawLine).find()) {
+                    newLines.add(rawLine + ".limit(" + LIMIT + ")");
+                    limited = true;
+                    break;
+                }
+            }
+            if (!limited || keepDuplicated) {
+                newLines.add(rawLine);
+            }
+        }
+        return StringUtils.join(newLines, "\n");
+    }
+
+    private static Set<Pattern> compile(String... texts) {
+        Set<Pattern> patterns = new LinkedHashSet<>();
+        for (String text : texts) {
+            String regex = StringUtils.replaceEach(text,
+                                                   new String[]{".", "(", ")"},
+                                                   new String[]{"\\.", "\\(",
+                                                                "\\)"});
+            if (text.contains("(STR)")) {
+                patterns.add(compile(regex.replace("STR", "'[\\s\\S]+'")));
+                patterns.add(compile(regex.replace("STR", "\"[\\s\\S]+\"")));
+            } else if (text.contains("(NUM)")) {
+                patterns.add(compile(regex.replace("NUM", "[\\d]+")));
+            } else {
+                patterns.add(compile(regex));
+            }
+        }
+        return patterns;
+    }
+
+    private static Pattern compile(String regex) {
+        return Pattern.compile("(" + regex + ")$");
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.baidu.hugegraph.entity.schema.ConflictDetail;
+import com.baidu.hugegraph.entity.schema.ConflictStatus;
+import com.baidu.hugegraph.entity.schema.PropertyKeyEntity;
+import com.baidu.hugegraph.entity.schema.SchemaConflict;
+import com.baidu.hugegraph.entity.schema.SchemaType;
+import com.baidu.hugegraph.service.schema.SchemaService;
+import com.baidu.hugegraph.structure.constant.Cardinality;
+import com.baidu.hugegraph.structure.constant.DataType;
+
+/**
+ * Compare the conflict detection of schema reuse with the pairwise way,
+ * see {@link BenchmarkRunner} to run it.
+ * Arguments: [elements=10000]
+ */
+public class SchemaConflictBenchmark {
+
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(3, 5);
+    private static final int PROPERTIES_PER_LABEL = 8;
+
+    public static void main(String[] args) throws Exception {
+        int size = BenchmarkRunner.intArg(args, 0, 10000);
+        BenchmarkRunner.title("Schema conflict benchmark with %s elements",
+                              size);
+
+        print("compareWithEachOther (pairwise)",
+              RUNNER.measure(() -> detail(size), detail -> {
+                  pairwiseCompareWithEachOther(detail);
+                  return detail;
+              }));
+        print("compareWithEachOther (grouped)",
+              RUNNER.measure(() -> detail(size), detail -> {
+                  SchemaService.compareWithEachOther(detail,
+                                                     SchemaType.PROPERTY_KEY);
+                  return detail;
+              }));
+
+        List<List<String>> labels = labelProperties(size);
+        print("anyPropertyKeyConflict (scan)",
+              RUNNER.measure(() -> comparedDetail(size), detail -> {
+                  int conflicts = 0;
+                  for (List<String> properties : labels) {
+                      if (scanAnyConflict(detail.getPkConflicts(),
+                                          properties)) {
+                          conflicts++;
+                      }
+                  }
+                  return conflicts;
+              }));
+        print("anyPropertyKeyConflict (indexed)",
+              RUNNER.measure(() -> comparedDetail(size), detail -> {
+                  int conflicts = 0;
+                  for (List<String> properties : labels) {
+                      if (detail.anyPropertyKeyConflict(properties)) {
+                          conflicts++;
+                      }
+                  }
+                  return conflicts;
+              }));
+    }
+
+    private static void print(String name, BenchmarkRunner.Result result) {
+        System.out.printf("%-36s %12.3f ms/op%n", name, result.millis());
+    }
+
+    /**
+     * About a quarter of the names are duplicated with different data type
+     */
+    private static ConflictDetail detail(int size) {
+        Random random = new Random(size);
+        DataType[] dataTypes = {DataType.TEXT, DataType.INT};
+        ConflictDetail detail = new ConflictDetail(SchemaType.PROPERTY_KEY);
+        for (int i = 0; i < size; i++) {
+            String name = "pk" + random.nextInt(size * 3 / 4);
+            DataType dataType = dataTypes[random.nextInt(dataTypes.length)];
+            PropertyKeyEntity entity = PropertyKeyEntity.builder()
+                                                        .name(name)
+                                                        .dataType(dataType)
+                                                        .cardinality(
+                                                         Cardinality.SINGLE)
+                                                        .build();
+            detail.add(entity, ConflictStatus.PASSED);
+        }
+        return detail;
+    }
+
+    private static ConflictDetail comparedDetail(int size) {
+        ConflictDetail detail = detail(size);
+        SchemaService.compareWithEachOther(detail, SchemaType.PROPERTY_KEY);
+        return detail;
+    }
+
+    private static List<List<String>> labelProperties(int size) {
+        Random random = new Random(size + 1);
+        List<List<String>> labels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String[] properties = new String[PROPERTIES_PER_LABEL];
+            for (int j = 0; j < properties.length; j++) {
+                properties[j] = "pk" + random.nextInt(size * 3 / 4);
+            }
+            labels.add(Arrays.asList(properties));
+        }
+        return labels;
+    }
+
+    private static void pairwiseCompareWithEachOther(ConflictDetail detail) {
+        List<SchemaConflict<PropertyKeyEntity>> conflicts;
+        conflicts = detail.getPkConflicts();
+        for (int i = 0; i < conflicts.size(); i++) {
+            SchemaConflict<PropertyKeyEntity> current = conflicts.get(i);
+            if (current.getStatus().isConflicted()) {
+                continue;
+            }
+            ConflictStatus status = current.getStatus();
+            for (int j = 0; j < conflicts.size(); j++) {
+                PropertyKeyEntity other = conflicts.get(j).getEntity();
+                if (i == j || !current.getEntity().getName()
+                                      .equals(other.getName())) {
+                    continue;
+                }
+                if (current.getEntity().equals(other)) {
+                    status = ConflictStatus.EXISTED;
+                } else {
+                    status = ConflictStatus.DUPNAME;
+                    break;
+                }
+            }
+            current.setStatus(status);
+        }
+    }
+
+    private static boolean scanAnyConflict(
+            List<SchemaConflict<PropertyKeyEntity>> conflicts,
+            List<String> names) {
+        return conflicts.stream().anyMatch(conflict -> {
+            String name = conflict.getEntity().getName();
+            return conflict.getStatus().isConflicted() && names.contains(name);
+        });
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.entity.query.CompactGremlinResult;
+import com.baidu.hugegraph.entity.query.GraphView;
+import com.baidu.hugegraph.entity.query.GremlinResult;
+import com.baidu.hugegraph.entity.query.JsonView;
+import com.baidu.hugegraph.entity.query.TableView;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableList;
+
+public class CompactGremlinResultTest {
+
+    @Test
+    public void testCompactPaths() {
+        Vertex marko = vertex("1:marko");
+        Vertex josh = vertex("1:josh");
+        Vertex lop = vertex("2:lop");
+        Edge knows = edge("S1:marko>1>>S1:josh", marko, josh);
+        Edge created = edge("S1:josh>2>>S2:lop", josh, lop);
+        // The same vertex deserialized twice is written once
+        List<Object> data = ImmutableList.of(
+                new Path(ImmutableList.of(marko, knows, josh)),
+                new Path(ImmutableList.of(vertex("1:josh"), created, lop))
+        );
+        TableView tableView = new TableView(TableView.PATH_HEADER,
+                                            ImmutableList.of());
+        GraphView graphView = new GraphView(ImmutableList.of(marko, josh, lop),
+                                            ImmutableList.of(knows, created));
+        GremlinResult result = GremlinResult.builder()
+                                            .type(GremlinResult.Type.PATH)
+                                            .handle("h1")
+                                            .jsonView(new JsonView(data))
+                                            .tableView(tableView)
+                                            .graphView(graphView)
+                                            .build();
+
+        CompactGremlinResult compact = CompactGremlinResult.of(result, data);
+        Assert.assertNotNull(compact);
+        Assert.assertEquals("h1", compact.getHandle());
+        Assert.assertEquals(5, compact.getElements().size());
+
+        List<Object> paths = compact.getJsonView().getData();
+        Assert.assertEquals(2, paths.size());
+        CompactGremlinResult.PathRefs path;
+        path = (CompactGremlinResult.PathRefs) paths.get(1);
+        Assert.assertEquals(ImmutableList.of(2, 3, 4), path.getObjects());
+
+        Map<?, ?> row = (Map<?, ?>) compact.getTableView().getRows().get(0);
+        Assert.assertEquals(ImmutableList.of(0, 1, 2), row.get("path"));
+        Assert.assertEquals(TableView.PATH_HEADER,
+                            compact.getTableView().getHeader());
+
+        Assert.assertEquals(ImmutableList.of(0, 2, 4),
+                            compact.getGraphView().getVertices());
+        Assert.assertEquals(ImmutableList.of(1, 3),
+                            compact.getGraphView().getEdges());
+    }
+
+    @Test
+    public void testCompactOnlyGraphElements() {
+        Vertex marko = vertex("1:marko");
+        List<Object> data = ImmutableList.of(marko, 1);
+        GremlinResult result = GremlinResult.builder()
+                                            .type(GremlinResult.Type.VERTEX)
+                                            .jsonView(new JsonView(data))
+                                            .build();
+        Assert.assertNull(CompactGremlinResult.of(result, data));
+
+        data = ImmutableList.of(new Path(ImmutableList.of(marko, "marko")));
+        result.setType(GremlinResult.Type.PATH);
+        Assert.assertNull(CompactGremlinResult.of(result, data));
+
+        data = ImmutableList.of(1, 2);
+        result.setType(GremlinResult.Type.GENERAL);
+        Assert.assertNull(CompactGremlinResult.of(result, data));
+    }
+
+    private static Vertex vertex(String id) {
+        Vertex vertex = new Vertex("person");
+        vertex.property("name", id.substring(2));
+        vertex.id(id);
+        return vertex;
+    }
+
+    private static Edge edge(String id, Vertex source, Vertex target) {
+        Edge edge = new Edge("link");
+        edge.id(id);
+        edge.sourceId(source.id());
+        edge.targetId(target.id());
+        return edge;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.entity.enums.ExecuteStatus;
+import com.baidu.hugegraph.entity.enums.ExecuteType;
+import com.baidu.hugegraph.entity.query.ExecuteHistory;
+import com.baidu.hugegraph.mapper.query.ExecuteHistoryMapper;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.service.query.ExecuteHistoryRecorder;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class ExecuteHistoryRecorderTest {
+
+    private ExecuteHistoryRecorder recorder;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        HugeConfig config = Mockito.mock(HugeConfig.class);
+        Mockito.when(config.get(HubbleOptions.EXECUTE_HISTORY_QUEUE_CAPACITY))
+               .thenReturn(100);
+        Mockito.when(config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT))
+               .thenReturn(500);
+        this.jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        PlatformTransactionManager manager;
+        manager = Mockito.mock(PlatformTransactionManager.class);
+
+        this.recorder = new ExecuteHistoryRecorder();
+        ReflectionTestUtils.setField(this.recorder, "config", config);
+        ReflectionTestUtils.setField(this.recorder, "jdbcTemplate",
+                                     this.jdbcTemplate);
+        ReflectionTestUtils.setField(this.recorder, "mapper",
+                                     Mockito.mock(ExecuteHistoryMapper.class));
+        ReflectionTestUtils.setField(this.recorder, "transaction",
+                                     new TransactionTemplate(manager));
+        ReflectionTestUtils.setField(this.recorder, "idGenerator",
+                                     new AtomicInteger());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushAfterFailedBatch() {
+        ExecuteHistory first = history();
+        ExecuteHistory second = history();
+        this.recorder.insert(first);
+        this.recorder.insert(second);
+
+        Mockito.when(this.jdbcTemplate.batchUpdate(Mockito.anyString(),
+                                                   Mockito.anyList()))
+               .thenThrow(new IllegalStateException("Database is busy"))
+               .thenReturn(new int[]{1, 1, 1});
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            this.recorder.flush();
+        });
+        // The failed insert is still pending, and it merges the update
+        Assert.assertNotNull(this.recorder.pending(first.getId()));
+        first.setStatus(ExecuteStatus.SUCCESS);
+        first.setDuration(10L);
+        this.recorder.update(first);
+        ExecuteHistory third = history();
+        this.recorder.insert(third);
+
+        this.recorder.flush();
+
+        ArgumentCaptor<List<Object[]>> captor;
+        captor = ArgumentCaptor.forClass((Class) List.class);
+        Mockito.verify(this.jdbcTemplate, Mockito.times(2))
+               .batchUpdate(Mockito.anyString(), captor.capture());
+        List<Object[]> args = captor.getValue();
+        Assert.assertEquals(3, args.size());
+        Assert.assertEquals(first.getId(), args.get(0)[0]);
+        Assert.assertEquals(ExecuteStatus.SUCCESS.getValue(), args.get(0)[4]);
+        Assert.assertEquals(second.getId(), args.get(1)[0]);
+        Assert.assertEquals(third.getId(), args.get(2)[0]);
+        Assert.assertNull(this.recorder.pending(first.getId()));
+    }
+
+    @Test
+    public void testDropAfterFailedManyTimes() {
+        ExecuteHistory history = history();
+        this.recorder.insert(history);
+
+        Mockito.when(this.jdbcTemplate.batchUpdate(Mockito.anyString(),
+                                                   Mockito.anyList()))
+               .thenThrow(new IllegalStateException("Database is broken"));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertThrows(IllegalStateException.class, () -> {
+                this.recorder.flush();
+            });
+        }
+        Assert.assertNull(this.recorder.pending(history.getId()));
+        // Nothing to write any more
+        this.recorder.flush();
+        Mockito.verify(this.jdbcTemplate, Mockito.times(3))
+               .batchUpdate(Mockito.anyString(), Mockito.anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInsertWhenCallerFlushFailed() {
+        HugeConfig config = Mockito.mock(HugeConfig.class);
+        Mockito.when(config.get(HubbleOptions.EXECUTE_HISTORY_QUEUE_CAPACITY))
+               .thenReturn(1);
+        Mockito.when(config.get(HubbleOptions.EXECUTE_HISTORY_SHOW_LIMIT))
+               .thenReturn(500);
+        ReflectionTestUtils.setField(this.recorder, "config", config);
+        ExecuteHistory first = history();
+        this.recorder.insert(first);
+
+        Mockito.when(this.jdbcTemplate.batchUpdate(Mockito.anyString(),
+                                                   Mockito.anyList()))
+               .thenThrow(new IllegalStateException("Database is busy"))
+               .thenReturn(new int[]{1, 1});
+        // The queue is full, the failed flush in caller thread is logged
+        ExecuteHistory second = history();
+        this.recorder.insert(second);
+        Assert.assertNotNull(this.recorder.pending(first.getId()));
+        Assert.assertNotNull(this.recorder.pending(second.getId()));
+
+        this.recorder.flush();
+
+        ArgumentCaptor<List<Object[]>> captor;
+        captor = ArgumentCaptor.forClass((Class) List.class);
+        Mockito.verify(this.jdbcTemplate, Mockito.times(2))
+               .batchUpdate(Mockito.anyString(), captor.capture());
+        List<Object[]> args = captor.getValue();
+        Assert.assertEquals(2, args.size());
+        Assert.assertEquals(first.getId(), args.get(0)[0]);
+        Assert.assertEquals(second.getId(), args.get(1)[0]);
+        Assert.assertNull(this.recorder.pending(second.getId()));
+    }
+
+    private static ExecuteHistory history() {
+        return new ExecuteHistory(null, 1, ExecuteType.GREMLIN, "g.V()",
+                                  ExecuteStatus.RUNNING, 0L, new Date());
+    }
+}
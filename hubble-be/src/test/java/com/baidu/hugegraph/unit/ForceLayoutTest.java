@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.baidu.hugegraph.layout.ForceLayout;
+import com.baidu.hugegraph.layout.LayoutGraph;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class ForceLayoutTest {
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void init() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterClass
+    public static void clear() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLayoutClusters() throws InterruptedException {
+        // Two cliques linked by one edge, scattered randomly at first
+        Random random = new Random(1L);
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        for (int i = 0; i < 20; i++) {
+            builder.vertex(i, random.nextDouble() * 100,
+                           random.nextDouble() * 100, false, 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            for (int j = i + 1; j < 10; j++) {
+                builder.edge(i, j);
+                builder.edge(i + 10, j + 10);
+            }
+        }
+        builder.edge(0, 10);
+        LayoutGraph graph = builder.build();
+
+        new ForceLayout(executor, 2).run(graph, 200);
+
+        double inner = 0.0;
+        double outer = 0.0;
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(Double.isFinite(graph.x(i)));
+            Assert.assertTrue(Double.isFinite(graph.y(i)));
+            for (int j = i + 1; j < 20; j++) {
+                if ((i < 10) == (j < 10)) {
+                    inner += distance(graph, i, j) / 90;
+                } else {
+                    outer += distance(graph, i, j) / 100;
+                }
+            }
+        }
+        Assert.assertTrue(inner < outer);
+    }
+
+    @Test
+    public void testLayoutWithFixedVertices() throws InterruptedException {
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        builder.vertex("a", 0.0, 0.0, true, 3);
+        builder.vertex("b", 50.0, 0.0, true, 1);
+        builder.vertex("c", 0.0, 0.0, false, 0);
+        builder.vertex("d", 1.0, 1.0, false, 0);
+        builder.edge("a", "c");
+        builder.edge("a", "d");
+        builder.edge("c", "d");
+        LayoutGraph graph = builder.build();
+
+        new ForceLayout(executor, 2).run(graph, 50);
+
+        int a = graph.index("a");
+        int b = graph.index("b");
+        Assert.assertEquals(0.0, graph.x(a), 0.0);
+        Assert.assertEquals(0.0, graph.y(a), 0.0);
+        Assert.assertEquals(50.0, graph.x(b), 0.0);
+        Assert.assertEquals(0.0, graph.y(b), 0.0);
+        Assert.assertEquals(5, graph.degree(a));
+        Assert.assertEquals(-1, graph.index("e"));
+        // The overlapped vertices are pushed away from each other
+        int c = graph.index("c");
+        Assert.assertTrue(distance(graph, a, c) > 0.0);
+        Assert.assertTrue(Double.isFinite(graph.x(c)));
+        Assert.assertTrue(Double.isFinite(graph.y(c)));
+    }
+
+    @Test
+    public void testLayoutInParallel() throws InterruptedException {
+        // Large enough to compute the forces by chunks in parallel
+        LayoutGraph serial = randomGraph(1200, 2400);
+        LayoutGraph parallel = randomGraph(1200, 2400);
+
+        new ForceLayout(executor, 1).run(serial, 30);
+        new ForceLayout(executor, 2).run(parallel, 30);
+
+        Assert.assertEquals(0.0, parallel.x(0), 0.0);
+        Assert.assertEquals(0.0, parallel.y(0), 0.0);
+        for (int i = 0; i < parallel.size(); i++) {
+            Assert.assertTrue(Double.isFinite(parallel.x(i)));
+            Assert.assertTrue(Double.isFinite(parallel.y(i)));
+            // The force of every vertex is computed alone, so is the same
+            Assert.assertEquals(serial.x(i), parallel.x(i), 0.0);
+            Assert.assertEquals(serial.y(i), parallel.y(i), 0.0);
+        }
+    }
+
+    private static LayoutGraph randomGraph(int vertices, int edges) {
+        Random random = new Random(vertices);
+        double width = 10.0 * Math.sqrt(vertices);
+        LayoutGraph.Builder builder = new LayoutGraph.Builder();
+        // The first vertex is fixed at the origin
+        builder.vertex(0, 0.0, 0.0, true, 0);
+        for (int i = 1; i < vertices; i++) {
+            builder.vertex(i, (random.nextDouble() - 0.5) * width,
+                           (random.nextDouble() - 0.5) * width, false, 0);
+        }
+        for (int i = 0; i < edges; i++) {
+            builder.edge(random.nextInt(vertices), random.nextInt(vertices));
+        }
+        return builder.build();
+    }
+
+    private static double distance(LayoutGraph graph, int i, int j) {
+        double dx = graph.x(i) - graph.x(j);
+        double dy = graph.y(i) - graph.y(j);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.net.ConnectException;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.baidu.hugegraph.api.gremlin.GremlinRequest;
+import com.baidu.hugegraph.config.HugeConfig;
+import com.baidu.hugegraph.driver.GremlinManager;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.entity.GraphConnection;
+import com.baidu.hugegraph.entity.query.AdjacentQuery;
+import com.baidu.hugegraph.entity.query.GremlinQuery;
+import com.baidu.hugegraph.entity.query.GremlinResult;
+import com.baidu.hugegraph.entity.query.GremlinResultHandle;
+import com.baidu.hugegraph.entity.query.TypedResult;
+import com.baidu.hugegraph.entity.schema.VertexLabelEntity;
+import com.baidu.hugegraph.exception.ExternalException;
+import com.baidu.hugegraph.options.HubbleOptions;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.service.GraphConnectionService;
+import com.baidu.hugegraph.service.GraphEndpointService;
+import com.baidu.hugegraph.service.HugeClientPoolService;
+import com.baidu.hugegraph.service.query.GremlinQueryService;
+import com.baidu.hugegraph.service.query.GremlinResultCacheService;
+import com.baidu.hugegraph.service.query.GremlinRewriteService;
+import com.baidu.hugegraph.service.schema.VertexLabelService;
+import com.baidu.hugegraph.structure.constant.IdStrategy;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableSet;
+
+public class GremlinQueryServiceTest {
+
+    private static final int CONN_ID = 1;
+
+    private GremlinQueryService queryService;
+    private HugeClientPoolService poolService;
+    private GremlinManager secondary;
+    private ExternalException refused;
+
+    @Before
+    public void setup() {
+        HugeConfig config = Mockito.mock(HugeConfig.class);
+        Mockito.when(config.get(HubbleOptions.CLIENT_POOL_ROUTE_STRATEGY))
+               .thenReturn("round_robin");
+        Mockito.when(config.get(HubbleOptions.CLIENT_POOL_BACKOFF_INITIAL))
+               .thenReturn(1);
+        Mockito.when(config.get(HubbleOptions.CLIENT_POOL_BACKOFF_MAX))
+               .thenReturn(60);
+        Mockito.when(config.get(HubbleOptions.GREMLIN_VERTEX_DEGREE_LIMIT))
+               .thenReturn(100);
+
+        GraphConnection connection = GraphConnection.builder()
+                                                    .id(CONN_ID)
+                                                    .graph("hugegraph")
+                                                    .host("127.0.0.1")
+                                                    .port(8080)
+                                                    .endpoints("127.0.0.2:8080")
+                                                    .build();
+        GraphConnectionService connService;
+        connService = Mockito.mock(GraphConnectionService.class);
+        Mockito.when(connService.get(CONN_ID)).thenReturn(connection);
+
+        // The connection host is down, only the secondary one answers
+        this.refused = new ExternalException(
+                       "service.unavailable",
+                       new ClientException("Failed to connect",
+                                           new ConnectException(
+                                               "Connection refused")),
+                       "127.0.0.1", 8080);
+        this.poolService = Mockito.mock(HugeClientPoolService.class);
+        Mockito.when(this.poolService.getOrCreate(CONN_ID))
+               .thenThrow(this.refused);
+        HugeClient client = Mockito.mock(HugeClient.class);
+        Mockito.when(this.poolService.getOrCreate(connection, "127.0.0.2",
+                                                  8080))
+               .thenReturn(client);
+        this.secondary = Mockito.mock(GremlinManager.class);
+        Mockito.when(client.gremlin()).thenReturn(this.secondary);
+        GremlinRequest.Builder request;
+        request = Mockito.mock(GremlinRequest.Builder.class);
+        Mockito.when(this.secondary.gremlin(Mockito.anyString()))
+               .thenReturn(request);
+        Mockito.when(request.binding(Mockito.anyString(), Mockito.any()))
+               .thenReturn(request);
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.iterator())
+               .thenReturn(Collections.emptyIterator());
+        Mockito.when(request.execute()).thenReturn(resultSet);
+
+        GraphEndpointService endpointService = new GraphEndpointService();
+        ReflectionTestUtils.setField(endpointService, "config", config);
+        ReflectionTestUtils.setField(endpointService, "connService",
+                                     connService);
+        ReflectionTestUtils.setField(endpointService, "poolService",
+                                     this.poolService);
+
+        GremlinRewriteService rewriteService;
+        rewriteService = Mockito.mock(GremlinRewriteService.class);
+        Mockito.when(rewriteService.rewrite(Mockito.anyString()))
+               .thenAnswer(invocation -> invocation.getArgument(0));
+        GremlinResultCacheService cacheService;
+        cacheService = Mockito.mock(GremlinResultCacheService.class);
+        Mockito.when(cacheService.newHandle(Mockito.anyInt(),
+                                            Mockito.any(TypedResult.class)))
+               .thenAnswer(invocation -> {
+                   return new GremlinResultHandle("handle", CONN_ID,
+                                                  invocation.getArgument(1));
+               });
+        VertexLabelService vlService = Mockito.mock(VertexLabelService.class);
+        Mockito.when(vlService.get("person", CONN_ID))
+               .thenReturn(VertexLabelEntity.builder()
+                                            .name("person")
+                                            .idStrategy(IdStrategy.PRIMARY_KEY)
+                                            .build());
+
+        this.queryService = new GremlinQueryService();
+        ReflectionTestUtils.setField(this.queryService, "config", config);
+        ReflectionTestUtils.setField(this.queryService, "poolService",
+                                     this.poolService);
+        ReflectionTestUtils.setField(this.queryService, "endpointService",
+                                     endpointService);
+        ReflectionTestUtils.setField(this.queryService, "rewriteService",
+                                     rewriteService);
+        ReflectionTestUtils.setField(this.queryService, "cacheService",
+                                     cacheService);
+        ReflectionTestUtils.setField(this.queryService, "vlService",
+                                     vlService);
+    }
+
+    @Test
+    public void testReadWhenConnectionHostDown() {
+        GremlinQuery query = GremlinQuery.builder()
+                                         .content("g.V().limit(10)")
+                                         .views(ImmutableSet.of(
+                                                GremlinResult.View.JSON))
+                                         .build();
+        // Try twice so that the round robin starts from either endpoint
+        for (int i = 0; i < 2; i++) {
+            GremlinResult result = this.queryService.executeQuery(CONN_ID,
+                                                                  query);
+            Assert.assertEquals(GremlinResult.Type.EMPTY, result.getType());
+        }
+        Mockito.verify(this.secondary, Mockito.times(2))
+               .gremlin("g.V().limit(10)");
+
+        AdjacentQuery adjacentQuery = AdjacentQuery.builder()
+                                                   .vertexId("marko")
+                                                   .vertexLabel("person")
+                                                   .build();
+        GremlinResult result = this.queryService.expandVertex(CONN_ID,
+                                                              adjacentQuery);
+        Assert.assertTrue(result.getGraphView().getVertices().isEmpty());
+        Mockito.verify(this.secondary, Mockito.times(3))
+               .gremlin(Mockito.anyString());
+    }
+
+    @Test
+    public void testWriteWhenConnectionHostDown() {
+        GremlinQuery query = GremlinQuery.builder()
+                                         .content("g.addV('person')")
+                                         .build();
+        // The write is never sent to the secondary endpoint
+        Assert.assertThrows(ExternalException.class, () -> {
+            this.queryService.executeQuery(CONN_ID, query);
+        }, e -> {
+            Assert.assertSame(this.refused, e);
+        });
+        Mockito.verify(this.secondary, Mockito.never())
+               .gremlin(Mockito.anyString());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.exception.IllegalGremlinException;
+import com.baidu.hugegraph.gremlin.GremlinRewriter;
+import com.baidu.hugegraph.gremlin.GremlinTokenizer;
+import com.baidu.hugegraph.gremlin.Token;
+import com.baidu.hugegraph.gremlin.rule.CountRule;
+import com.baidu.hugegraph.gremlin.rule.DedupRule;
+import com.baidu.hugegraph.gremlin.rule.IdLookupRule;
+import com.baidu.hugegraph.gremlin.rule.LimitRule;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class GremlinRewriterTest {
+
+    private static final GremlinRewriter REWRITER = new GremlinRewriter()
+            .register(new IdLookupRule())
+            .register(new DedupRule())
+            .register(new CountRule())
+            .register(new LimitRule(250));
+
+    @Test
+    public void testTokenize() {
+        String gremlin = "g.V('1:a').has(\"name\", 'x;y') // a;b\n" +
+                         "/* c */ x = 1.5e3d; g.E()[0..2]; '''a\n'b'''";
+        List<Token> tokens = GremlinTokenizer.tokenize(gremlin);
+        StringBuilder sb = new StringBuilder();
+        tokens.forEach(token -> sb.append(token.text()));
+        Assert.assertEquals(gremlin, sb.toString());
+
+        long semicolons = tokens.stream()
+                                .filter(t -> t.is(Token.Type.SEMICOLON))
+                                .count();
+        Assert.assertEquals(2L, semicolons);
+        Assert.assertTrue(tokens.stream().anyMatch(
+                          t -> t.is(Token.Type.NUMBER, "1.5e3d")));
+        Assert.assertTrue(tokens.stream().anyMatch(
+                          t -> t.is(Token.Type.STRING, "'''a\n'b'''")));
+
+        Assert.assertThrows(IllegalGremlinException.class, () -> {
+            GremlinTokenizer.tokenize("g.V().has('name', 'x)");
+        }, e -> {
+            Assert.assertEquals("gremlin.parse.unclosed-string",
+                                e.getMessage());
+        });
+    }
+
+    @Test
+    public void testLimitRule() {
+        assertRewritten("g.V().limit(250)", "g.V()");
+        assertRewritten("g.V().hasLabel('person').values('name').limit(250)",
+                        "g.V().hasLabel('person').values('name')");
+        assertRewritten("g.V().has('name', 'a;b').limit(250)",
+                        "g.V().has('name', 'a;b')");
+        assertRewritten("g.V().limit(250);g.E().limit(250)", "g.V();g.E()");
+        assertRewritten("g.V()\n  .out().limit(250)", "g.V()\n  .out()");
+        assertRewritten("// g.V()\nx = g.V().hasLabel('person').limit(250)",
+                        "// g.V()\nx = g.V().hasLabel('person')");
+        assertRewritten("g.V().count()", "g.V().count()");
+        assertRewritten("g.V().limit(10)", "g.V().limit(10)");
+        assertRewritten("g.addV('person').property('name', 'marko')",
+                        "g.addV('person').property('name', 'marko')");
+        assertRewritten("g.V().hasLabel()", "g.V().hasLabel()");
+    }
+
+    @Test
+    public void testLimitRuleWithNestedTraversal() {
+        assertRewritten("g.V().where(out('knows').limit(1)).limit(250)",
+                        "g.V().where(out('knows'))");
+        assertRewritten("g.V().not(__.inE().limit(1)).values('name')" +
+                        ".limit(250)",
+                        "g.V().not(__.inE()).values('name')");
+        assertRewritten("g.V().and(out().limit(1), in().limit(1)).count()",
+                        "g.V().and(out(), in()).count()");
+        assertRewritten("g.V().where(out().as('a')).limit(250)",
+                        "g.V().where(out().as('a'))");
+        assertRewritten("g.V().union(out(), in()).limit(250)",
+                        "g.V().union(out(), in())");
+    }
+
+    @Test
+    public void testLimitRuleWithNestedMutation() {
+        assertRewritten("g.V().hasLabel('person')" +
+                        ".coalesce(__.has('x'), __.property('x', 1))",
+                        "g.V().hasLabel('person')" +
+                        ".coalesce(__.has('x'), __.property('x', 1))");
+        assertRewritten("g.V().hasLabel('person').union(__.drop())",
+                        "g.V().hasLabel('person').union(__.drop())");
+        assertRewritten("g.V().where(out().sideEffect(drop()))" +
+                        ".values('name')",
+                        "g.V().where(out().sideEffect(drop()))" +
+                        ".values('name')");
+    }
+
+    @Test
+    public void testCountRule() {
+        assertRewritten("g.V().where(out().limit(4).count().is(gt(3)))" +
+                        ".limit(250)",
+                        "g.V().where(out().count().is(gt(3)))");
+        assertRewritten("g.V().where(out().limit(3).count().is(P.lte(2)))" +
+                        ".limit(250)",
+                        "g.V().where(out().count().is(P.lte(2)))");
+        assertRewritten("g.V().where(limit(1).count().is(0)).limit(250)",
+                        "g.V().where(count().is(0))");
+        assertRewritten("g.V().not(__.limit(1).count().is(0)).limit(250)",
+                        "g.V().not(__.count().is(0))");
+        assertRewritten("g.V().where(out().limit(5).count().is(gt(3)))" +
+                        ".limit(250)",
+                        "g.V().where(out().limit(5).count().is(gt(3)))");
+        assertRewritten("g.V().where(out().count().is(gt(x))).limit(250)",
+                        "g.V().where(out().count().is(gt(x)))");
+    }
+
+    @Test
+    public void testCountRuleWithCountAsResult() {
+        // The count is the result rather than checked by a filter step
+        assertRewritten("g.V().count().is(gt(3))",
+                        "g.V().count().is(gt(3))");
+        assertRewritten("g.V().out().count().is(0)",
+                        "g.V().out().count().is(0)");
+        assertRewritten("g.V().project('a').by(out().count().is(gt(3)))",
+                        "g.V().project('a').by(out().count().is(gt(3)))");
+        // The mutation must apply to all elements
+        assertRewritten("g.V().property('age', 1).count().is(gt(0))",
+                        "g.V().property('age', 1).count().is(gt(0))");
+        assertRewritten("g.V().where(out().property('age', 1).count()" +
+                        ".is(gt(0)))",
+                        "g.V().where(out().property('age', 1).count()" +
+                        ".is(gt(0)))");
+    }
+
+    @Test
+    public void testDedupRule() {
+        assertRewritten("g.V().dedup().order().by('name').limit(250)",
+                        "g.V().order().by('name').dedup()");
+        assertRewritten("g.V().values('age').dedup().order().count()",
+                        "g.V().values('age').order().dedup().count()");
+        assertRewritten("g.V().dedup().limit(250)",
+                        "g.V().dedup().dedup()");
+        assertRewritten("g.V().order().by('age').dedup().by('name')",
+                        "g.V().order().by('age').dedup().by('name')");
+        assertRewritten("g.V().dedup().order().by('name').limit(250)",
+                        "g.V().dedup().order().by('name').dedup()");
+        assertRewritten("g.V().dedup().order().limit(250)",
+                        "g.V().order().dedup().dedup()");
+        assertRewritten("g.V().dedup().limit(250)",
+                        "g.V().dedup().dedup().dedup()");
+    }
+
+    @Test
+    public void testIdLookupRule() {
+        assertRewritten("g.V('1:marko', '2:vadas').limit(250)",
+                        "g.V().hasId('1:marko', '2:vadas')");
+        assertRewritten("g.V(1).out().limit(250)",
+                        "g.V().has(T.id, 1).out()");
+        assertRewritten("g.E('S1:a>1>>S2:b').values('weight').limit(250)",
+                        "g.E().hasId('S1:a>1>>S2:b').values('weight')");
+        assertRewritten("g.V().hasId(ids).limit(250)", "g.V().hasId(ids)");
+        assertRewritten("g.V('1').hasId('2').limit(250)",
+                        "g.V('1').hasId('2')");
+    }
+
+    @Test
+    public void testRewriteWithIllegalGremlin() {
+        Assert.assertThrows(IllegalGremlinException.class, () -> {
+            REWRITER.rewrite("g.V().has('name', 'marko'");
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new GremlinRewriter().register(new DedupRule())
+                                 .register(new DedupRule());
+        });
+    }
+
+    private static void assertRewritten(String expected, String gremlin) {
+        Assert.assertEquals(expected, REWRITER.rewrite(gremlin));
+    }
+}
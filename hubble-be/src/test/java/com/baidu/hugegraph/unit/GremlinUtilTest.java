@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.util.GremlinUtil;
+
+public class GremlinUtilTest {
+
+    private static final int LIMIT = 10;
+
+    @Test
+    public void testOptimizeLimit() {
+        assertOptimized("g.V().limit(10)", "g.V()");
+        assertOptimized("g.E().limit(10)", "g.E()");
+        assertOptimized("g.V(1).outE().limit(10)", "g.V(1).outE()");
+        assertOptimized("g.V(1).both().simplePath().limit(10)",
+                        "g.V(1).both().simplePath()");
+        assertOptimized("g.V().hasLabel('person').limit(10)",
+                        "g.V().hasLabel('person')");
+        assertOptimized("g.V().hasLabel(\"person\").limit(10)",
+                        "g.V().hasLabel(\"person\")");
+        assertOptimized("g.V().hasLabel(1).limit(10)", "g.V().hasLabel(1)");
+        // The quoted label may contain anything
+        assertOptimized("g.V().hasLabel('a').out('b').limit(10)",
+                        "g.V().hasLabel('a').out('b')");
+    }
+
+    @Test
+    public void testOptimizeLimitWithUnmatched() {
+        assertOptimized("g.V().count()", "g.V().count()");
+        assertOptimized("g.V().limit(5)", "g.V().limit(5)");
+        assertOptimized("g.V(1)", "g.V(1)");
+        assertOptimized("g.V() ", "g.V() ");
+        assertOptimized("g.V().hasLabel('')", "g.V().hasLabel('')");
+        assertOptimized("g.V().hasLabel('a\")", "g.V().hasLabel('a\")");
+        assertOptimized("g.V().hasLabel()", "g.V().hasLabel()");
+        assertOptimized("g.V().hasLabel(a1)", "g.V().hasLabel(a1)");
+        assertOptimized("V()", "V()");
+        assertOptimized("", "");
+    }
+
+    @Test
+    public void testOptimizeLimitWithComment() {
+        assertOptimized("// g.V()", "// g.V()");
+        assertOptimized("  \t//g.V()", "  \t//g.V()");
+        assertOptimized("/ g.V().limit(10)", "/ g.V()");
+    }
+
+    @Test
+    public void testOptimizeLimitWithMultiLines() {
+        // Each matched line is limited and appears only once
+        assertOptimized("g.V().limit(10)\ng.E().count()\ng.E().limit(10)",
+                        "g.V()\ng.E().count()\ng.E()");
+        assertOptimized("// all vertices\ng.V().limit(10)\n",
+                        "// all vertices\ng.V()\n");
+        assertOptimized("g.V().limit(10)\n\ng.E().limit(10)",
+                        "g.V()\n\ng.E()");
+        assertOptimized("g.V().limit(10)\r\ng.E().limit(10)\r\n",
+                        "g.V()\r\ng.E()\r\n");
+    }
+
+    private static void assertOptimized(String expected, String gremlin) {
+        Assert.assertEquals(expected, GremlinUtil.optimizeLimit(gremlin, LIMIT));
+    }
+}
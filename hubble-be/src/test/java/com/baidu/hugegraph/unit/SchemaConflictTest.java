@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.entity.schema.ConflictDetail;
+import com.baidu.hugegraph.entity.schema.ConflictStatus;
+import com.baidu.hugegraph.entity.schema.PropertyKeyEntity;
+import com.baidu.hugegraph.entity.schema.SchemaConflict;
+import com.baidu.hugegraph.entity.schema.SchemaType;
+import com.baidu.hugegraph.service.schema.SchemaService;
+import com.baidu.hugegraph.structure.constant.Cardinality;
+import com.baidu.hugegraph.structure.constant.DataType;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class SchemaConflictTest {
+
+    @Test
+    public void testCompareWithEachOther() {
+        ConflictDetail detail = new ConflictDetail(SchemaType.PROPERTY_KEY);
+        detail.add(pk("a", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("a", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("b", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("b", DataType.INT), ConflictStatus.EXISTED);
+        detail.add(pk("c", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("d", DataType.TEXT), ConflictStatus.DUPNAME);
+        detail.add(pk("d", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("e", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("e", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("e", DataType.INT), ConflictStatus.PASSED);
+
+        SchemaService.compareWithEachOther(detail, SchemaType.PROPERTY_KEY);
+
+        List<ConflictStatus> expected = Arrays.asList(
+                ConflictStatus.EXISTED, ConflictStatus.EXISTED,
+                ConflictStatus.DUPNAME, ConflictStatus.DUPNAME,
+                ConflictStatus.PASSED,
+                ConflictStatus.DUPNAME, ConflictStatus.EXISTED,
+                ConflictStatus.DUPNAME, ConflictStatus.DUPNAME,
+                ConflictStatus.DUPNAME);
+        Assert.assertEquals(expected, statuses(detail.getPkConflicts()));
+    }
+
+    @Test
+    public void testCompareWithEachOtherSameAsPairwise() {
+        Random random = new Random(20200401L);
+        DataType[] dataTypes = {DataType.TEXT, DataType.INT, DataType.LONG};
+        ConflictStatus[] initials = {ConflictStatus.PASSED,
+                                     ConflictStatus.EXISTED,
+                                     ConflictStatus.DUPNAME};
+        ConflictDetail detail = new ConflictDetail(SchemaType.PROPERTY_KEY);
+        for (int i = 0; i < 2000; i++) {
+            String name = "pk" + random.nextInt(800);
+            DataType dataType = dataTypes[random.nextInt(dataTypes.length)];
+            ConflictStatus status = initials[random.nextInt(initials.length)];
+            detail.add(pk(name, dataType), status);
+        }
+        List<SchemaConflict<PropertyKeyEntity>> conflicts;
+        conflicts = detail.getPkConflicts();
+        List<ConflictStatus> expected = pairwiseCompare(conflicts);
+
+        SchemaService.compareWithEachOther(detail, SchemaType.PROPERTY_KEY);
+        Assert.assertEquals(expected, statuses(conflicts));
+    }
+
+    @Test
+    public void testAnyConflict() {
+        ConflictDetail detail = new ConflictDetail(SchemaType.VERTEX_LABEL);
+        detail.add(pk("a", DataType.TEXT), ConflictStatus.PASSED);
+        detail.add(pk("a", DataType.INT), ConflictStatus.PASSED);
+        detail.add(pk("b", DataType.TEXT), ConflictStatus.EXISTED);
+
+        Assert.assertFalse(detail.anyPropertyKeyConflict(
+                           Arrays.asList("a", "b")));
+        Assert.assertFalse(detail.anyPropertyKeyConflict(
+                           Collections.emptyList()));
+
+        SchemaService.compareWithEachOther(detail, SchemaType.PROPERTY_KEY);
+        Assert.assertTrue(detail.anyPropertyKeyConflict(
+                          Arrays.asList("a", "b")));
+        Assert.assertFalse(detail.anyPropertyKeyConflict(
+                           Arrays.asList("b", "c")));
+
+        detail.add(pk("c", DataType.TEXT), ConflictStatus.DEP_CONFLICT);
+        Assert.assertTrue(detail.anyPropertyKeyConflict(
+                          Arrays.asList("b", "c")));
+        Assert.assertFalse(detail.anyVertexLabelConflict(
+                           Arrays.asList("a", "c")));
+    }
+
+    private static PropertyKeyEntity pk(String name, DataType dataType) {
+        return PropertyKeyEntity.builder()
+                                .name(name)
+                                .dataType(dataType)
+                                .cardinality(Cardinality.SINGLE)
+                                .build();
+    }
+
+    private static List<ConflictStatus> statuses(
+            List<SchemaConflict<PropertyKeyEntity>> conflicts) {
+        List<ConflictStatus> statuses = new ArrayList<>(conflicts.size());
+        for (SchemaConflict<PropertyKeyEntity> conflict : conflicts) {
+            statuses.add(conflict.getStatus());
+        }
+        return statuses;
+    }
+
+    /**
+     * Compare every unconflicted entity with all the others one by one
+     */
+    private static List<ConflictStatus> pairwiseCompare(
+            List<SchemaConflict<PropertyKeyEntity>> conflicts) {
+        List<ConflictStatus> statuses = new ArrayList<>(conflicts.size());
+        for (int i = 0; i < conflicts.size(); i++) {
+            SchemaConflict<PropertyKeyEntity> current = conflicts.get(i);
+            ConflictStatus status = current.getStatus();
+            if (!status.isConflicted()) {
+                for (int j = 0; j < conflicts.size(); j++) {
+                    PropertyKeyEntity other = conflicts.get(j).getEntity();
+                    if (i == j || !current.getEntity().getName()
+                                          .equals(other.getName())) {
+                        continue;
+                    }
+                    if (current.getEntity().equals(other)) {
+                        status = ConflictStatus.EXISTED;
+                    } else {
+                        status = ConflictStatus.DUPNAME;
+                        break;
+                    }
+                }
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+}
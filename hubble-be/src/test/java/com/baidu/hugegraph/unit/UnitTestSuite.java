@@ -24,7 +24,14 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-    EntityUtilTest.class
+    EntityUtilTest.class,
+    SchemaConflictTest.class,
+    GremlinUtilTest.class,
+    GremlinRewriterTest.class,
+    CompactGremlinResultTest.class,
+    ForceLayoutTest.class,
+    ExecuteHistoryRecorderTest.class,
+    GremlinQueryServiceTest.class
 })
 public class UnitTestSuite {
 }